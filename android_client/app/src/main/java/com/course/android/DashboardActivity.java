@@ -116,6 +116,7 @@ public class DashboardActivity extends AppCompatActivity {
                 .setTitle("退出登录")
                 .setMessage("确定要退出登录吗？")
                 .setPositiveButton("确定", (dialog, which) -> {
+                    RetrofitClient.logout();
                     sessionManager.clearSession();
                     navigateToLogin();
                 })
@@ -104,7 +104,8 @@ public class LoginActivity extends AppCompatActivity {
                                 user.getUserId(),
                                 user.getUsername(),
                                 user.getRole(),
-                                user.getToken()
+                                user.getToken(),
+                                user.getRefreshToken()
                             );
                             sessionManager.saveUserDetails(
                                 user.getRealName(),
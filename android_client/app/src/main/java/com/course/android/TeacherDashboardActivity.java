@@ -135,6 +135,7 @@ public class TeacherDashboardActivity extends AppCompatActivity {
                 .setTitle("退出登录")
                 .setMessage("确定要退出登录吗？")
                 .setPositiveButton("确定", (dialog, which) -> {
+                    RetrofitClient.logout();
                     sessionManager.clearSession();
                     navigateToLogin();
                 })
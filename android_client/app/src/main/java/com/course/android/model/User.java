@@ -16,6 +16,7 @@ public class User {
     private String major;
     private String className;
     private String token;
+    private String refreshToken;
     private String password; // 仅用于注册请求
     
     // Getters
@@ -31,6 +32,7 @@ public class User {
     public String getMajor() { return major; }
     public String getClassName() { return className; }
     public String getToken() { return token; }
+    public String getRefreshToken() { return refreshToken; }
     
     // Setters (用于注册)
     public void setUsername(String username) { this.username = username; }
@@ -10,6 +10,7 @@ import java.util.Map;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.POST;
 import retrofit2.http.Query;
 
@@ -26,8 +27,12 @@ public interface ApiService {
     @POST("api/users/register")
     Call<ApiResponse<Object>> register(@Body User user);
 
+    /**
+     * 登出：吊销访问令牌与刷新令牌。显式传入 Authorization，调用后会立即清除本地会话
+     */
     @POST("api/users/logout")
-    Call<ApiResponse<Object>> logout();
+    Call<ApiResponse<Object>> logout(@Header("Authorization") String authorization,
+                                     @Body Map<String, String> logoutData);
 
     @GET("api/users/{userId}")
     Call<ApiResponse<User>> getUserById(@retrofit2.http.Path("userId") String userId);
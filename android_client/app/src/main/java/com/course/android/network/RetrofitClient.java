@@ -1,15 +1,29 @@
 package com.course.android.network;
 
 import android.content.Context;
+import com.course.android.model.ApiResponse;
 import com.course.android.util.SessionManager;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import retrofit2.Call;
+import retrofit2.Callback;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 /**
  * Retrofit 单例客户端
  * 避免重复创建 Retrofit 实例，统一管理网络配置
+ *
+ * 访问令牌有效期较短（15 分钟），收到 401 时用刷新令牌换取新令牌后自动重试原请求，
+ * 多个请求同时 401 时只刷新一次；刷新失败才清除会话，需要重新登录。
  */
 public class RetrofitClient {
     // Android 模拟器访问本机 localhost 使用 10.0.2.2
@@ -19,6 +33,10 @@ public class RetrofitClient {
     private static ApiService apiService = null;
     private static Context appContext = null;
 
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final Gson gson = new Gson();
+    private static final Object refreshLock = new Object();
+
     private RetrofitClient() {
         // 私有构造函数，防止外部实例化
     }
@@ -56,6 +74,9 @@ public class RetrofitClient {
                 return chain.proceed(request);
             });
 
+            // 401 时刷新令牌并重试一次
+            httpClient.authenticator((route, response) -> refreshAndRetry(response));
+
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
                     .addConverterFactory(GsonConverterFactory.create())
@@ -65,6 +86,93 @@ public class RetrofitClient {
         return retrofit;
     }
 
+    /**
+     * 用刷新令牌换取新令牌，返回带新令牌的原请求；无法刷新时返回 null（OkHttp 将 401 交给调用方）
+     */
+    private static Request refreshAndRetry(Response response) {
+        if (appContext == null || response.priorResponse() != null
+                || response.request().url().encodedPath().startsWith("/api/users/refresh")) {
+            return null;
+        }
+        SessionManager session = SessionManager.getInstance(appContext);
+        String failedToken = bearerToken(response.request());
+
+        synchronized (refreshLock) {
+            // 其他请求已经刷新过，直接用新令牌重试
+            String current = session.getToken();
+            if (current != null && !current.equals(failedToken)) {
+                return withToken(response.request(), current);
+            }
+
+            String refreshToken = session.getRefreshToken();
+            if (refreshToken == null || refreshToken.isEmpty()) {
+                return null;
+            }
+            Map<String, String> body = new HashMap<>();
+            body.put("refreshToken", refreshToken);
+            Request refreshRequest = new Request.Builder()
+                    .url(BASE_URL + "api/users/refresh")
+                    .post(RequestBody.create(gson.toJson(body), JSON))
+                    .build();
+
+            // 使用不带拦截器与认证器的客户端，避免递归
+            try (Response refreshResponse = new OkHttpClient().newCall(refreshRequest).execute()) {
+                if (!refreshResponse.isSuccessful() || refreshResponse.body() == null) {
+                    return null;
+                }
+                JsonObject json = gson.fromJson(refreshResponse.body().string(), JsonObject.class);
+                if (json == null || !json.has("code") || json.get("code").getAsInt() != 200
+                        || !json.has("data") || !json.get("data").isJsonObject()) {
+                    // 刷新令牌已过期或被吊销，需要重新登录
+                    session.clearSession();
+                    return null;
+                }
+                JsonObject data = json.getAsJsonObject("data");
+                String token = data.get("token").getAsString();
+                session.saveTokens(token, data.get("refreshToken").getAsString());
+                return withToken(response.request(), token);
+            } catch (IOException | RuntimeException e) {
+                // 网络错误时保留会话，下次请求再尝试刷新
+                return null;
+            }
+        }
+    }
+
+    private static String bearerToken(Request request) {
+        String header = request.header("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+    }
+
+    private static Request withToken(Request request, String token) {
+        return request.newBuilder().header("Authorization", "Bearer " + token).build();
+    }
+
+    /**
+     * 通知服务器吊销当前令牌（不等待结果），调用方随后清除本地会话
+     */
+    public static void logout() {
+        if (appContext == null) {
+            return;
+        }
+        SessionManager session = SessionManager.getInstance(appContext);
+        String token = session.getToken();
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        Map<String, String> body = new HashMap<>();
+        body.put("refreshToken", session.getRefreshToken());
+        getApiService().logout("Bearer " + token, body).enqueue(new Callback<ApiResponse<Object>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<Object>> call,
+                                   retrofit2.Response<ApiResponse<Object>> response) {
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse<Object>> call, Throwable t) {
+            }
+        });
+    }
+
     /**
      * 获取 ApiService 实例
      */
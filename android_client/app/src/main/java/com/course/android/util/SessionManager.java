@@ -10,6 +10,7 @@ import android.content.SharedPreferences;
 public class SessionManager {
     private static final String PREF_NAME = "CourseSystemSession";
     private static final String KEY_TOKEN = "token";
+    private static final String KEY_REFRESH_TOKEN = "refreshToken";
     private static final String KEY_USER_ID = "userId";
     private static final String KEY_USERNAME = "username";
     private static final String KEY_ROLE = "role";
@@ -39,15 +40,27 @@ public class SessionManager {
     /**
      * 保存登录会话
      */
-    public void saveLoginSession(String userId, String username, String role, String token) {
+    public void saveLoginSession(String userId, String username, String role, String token,
+                                 String refreshToken) {
         editor.putString(KEY_USER_ID, userId);
         editor.putString(KEY_USERNAME, username);
         editor.putString(KEY_ROLE, role);
         editor.putString(KEY_TOKEN, token);
+        editor.putString(KEY_REFRESH_TOKEN, refreshToken);
         editor.putBoolean(KEY_IS_LOGGED_IN, true);
         editor.apply();
     }
 
+    /**
+     * 保存刷新后的令牌对（刷新令牌每次使用后轮换，旧的立即失效）
+     * 使用 commit 同步写入，避免进程被杀后仍保存着已失效的刷新令牌
+     */
+    public void saveTokens(String token, String refreshToken) {
+        editor.putString(KEY_TOKEN, token);
+        editor.putString(KEY_REFRESH_TOKEN, refreshToken);
+        editor.commit();
+    }
+
     /**
      * 保存扩展用户信息
      */
@@ -64,6 +77,13 @@ public class SessionManager {
         return prefs.getString(KEY_TOKEN, null);
     }
 
+    /**
+     * 获取刷新令牌
+     */
+    public String getRefreshToken() {
+        return prefs.getString(KEY_REFRESH_TOKEN, null);
+    }
+
     /**
      * 获取用户 ID
      */
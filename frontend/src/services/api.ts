@@ -1,4 +1,4 @@
-import axios, { AxiosInstance, InternalAxiosRequestConfig } from 'axios';
+import axios, { AxiosError, AxiosInstance, InternalAxiosRequestConfig } from 'axios';
 
 // Create axios instance with default config
 const api: AxiosInstance = axios.create({
@@ -23,15 +23,52 @@ api.interceptors.request.use(
     }
 );
 
+// Exchange the stored refresh token for a new token pair.
+// Concurrent 401s share one refresh request, since each refresh token can only be used once.
+let refreshing: Promise<string | null> | null = null;
+
+async function refreshAccessToken(): Promise<string | null> {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+        return null;
+    }
+    try {
+        const response = await axios.post('/api/users/refresh', { refreshToken });
+        if (response.data.code === 200 && response.data.data) {
+            localStorage.setItem('token', response.data.data.token);
+            localStorage.setItem('refreshToken', response.data.data.refreshToken);
+            return response.data.data.token;
+        }
+    } catch {
+        // fall through
+    }
+    // Another tab may have rotated the refresh token in the meantime
+    const latest = localStorage.getItem('refreshToken');
+    return latest && latest !== refreshToken ? localStorage.getItem('token') : null;
+}
+
 // Response interceptor to handle common errors
 api.interceptors.response.use(
     (response) => {
         return response;
     },
-    (error) => {
+    async (error: AxiosError) => {
+        const original = error.config as (InternalAxiosRequestConfig & { _retried?: boolean }) | undefined;
+        if (error.response?.status === 401 && original && !original._retried) {
+            original._retried = true;
+            refreshing = refreshing ?? refreshAccessToken().finally(() => {
+                refreshing = null;
+            });
+            const token = await refreshing;
+            if (token) {
+                original.headers.Authorization = `Bearer ${token}`;
+                return api(original);
+            }
+        }
         if (error.response?.status === 401) {
-            // Token expired or invalid, redirect to login
+            // Token expired or invalid and could not be refreshed, redirect to login
             localStorage.removeItem('token');
+            localStorage.removeItem('refreshToken');
             localStorage.removeItem('user');
             window.location.href = '/login';
         }
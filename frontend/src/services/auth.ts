@@ -11,6 +11,9 @@ export async function login(request: LoginRequest): Promise<User | null> {
             if (user.token) {
                 localStorage.setItem('token', user.token);
             }
+            if (user.refreshToken) {
+                localStorage.setItem('refreshToken', user.refreshToken);
+            }
             localStorage.setItem('user', JSON.stringify(user));
             return user;
         }
@@ -21,9 +24,16 @@ export async function login(request: LoginRequest): Promise<User | null> {
     }
 }
 
-// Logout - clear local storage
+// Logout - revoke tokens on the server, then clear local storage
 export function logout(): void {
+    const token = localStorage.getItem('token');
+    const refreshToken = localStorage.getItem('refreshToken');
+    const headers = token ? { Authorization: `Bearer ${token}` } : undefined;
+    api.post('/users/logout', { refreshToken }, { headers }).catch(() => {
+        // Tokens expire on their own if the server cannot be reached
+    });
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('user');
 }
 
@@ -88,6 +98,9 @@ export async function loginBySms(phoneNumber: string, code: string): Promise<Use
             if (user.token) {
                 localStorage.setItem('token', user.token);
             }
+            if (user.refreshToken) {
+                localStorage.setItem('refreshToken', user.refreshToken);
+            }
             localStorage.setItem('user', JSON.stringify(user));
             return user;
         }
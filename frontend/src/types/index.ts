@@ -13,6 +13,8 @@ export interface User {
     major?: string;
     className?: string;
     token?: string;
+    refreshToken?: string;
+    expiresIn?: number;
 }
 
 export interface Course {
@@ -105,7 +105,8 @@ CREATE TABLE IF NOT EXISTS sms_verification_codes (
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     expires_at DATETIME NOT NULL,
     used BOOLEAN DEFAULT FALSE,
-    INDEX idx_phone_type (phone_number, type)
+    INDEX idx_phone_type (phone_number, type),
+    INDEX idx_expires_at (expires_at)
 );
 
 -- Course Resources Table (课程资源表)
@@ -118,6 +119,7 @@ CREATE TABLE IF NOT EXISTS course_resources (
     stored_file_name VARCHAR(100),
     file_path VARCHAR(500),
     file_size BIGINT,
+    content_hash CHAR(64) COMMENT 'SHA-256 of file content',
     file_type VARCHAR(100),
     resource_type VARCHAR(50) DEFAULT 'other' COMMENT 'courseware, document, video, other',
     description TEXT,
@@ -127,5 +129,93 @@ CREATE TABLE IF NOT EXISTS course_resources (
     FOREIGN KEY (course_id) REFERENCES courses(course_id),
     FOREIGN KEY (uploader_id) REFERENCES users(user_id),
     INDEX idx_course_id (course_id),
-    INDEX idx_uploader_id (uploader_id)
+    INDEX idx_uploader_id (uploader_id),
+    INDEX idx_content_hash (content_hash)
+);
+
+-- 升级已有数据库：资源按内容摘要去重存储，必须先增加 content_hash 列，否则上传会报 Unknown column
+-- ALTER TABLE course_resources
+--     ADD COLUMN content_hash CHAR(64) COMMENT 'SHA-256 of file content' AFTER file_size,
+--     ADD INDEX idx_content_hash (content_hash);
+-- 升级前上传的资源 content_hash 为 NULL，仍从原来的课程目录 ({course_id}/{stored_file_name}) 读取与删除，不参与去重，无需回填；
+-- 可用 SELECT COUNT(*) FROM course_resources WHERE content_hash IS NULL 查看剩余的旧记录
+
+-- Resource Blobs Table (资源内容块表，按内容摘要去重)
+CREATE TABLE IF NOT EXISTS resource_blobs (
+    content_hash CHAR(64) PRIMARY KEY COMMENT 'SHA-256 of file content',
+    file_path VARCHAR(500) NOT NULL,
+    file_size BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0 COMMENT 'number of course_resources rows referencing this blob',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Chunked Uploads Table (分片上传会话表)
+CREATE TABLE IF NOT EXISTS chunked_uploads (
+    upload_id VARCHAR(50) PRIMARY KEY,
+    course_id VARCHAR(50) NOT NULL,
+    uploader_id VARCHAR(50) NOT NULL,
+    original_file_name VARCHAR(200),
+    file_type VARCHAR(100),
+    file_size BIGINT NOT NULL,
+    chunk_size INT NOT NULL,
+    total_chunks INT NOT NULL,
+    content_hash CHAR(64) COMMENT 'expected SHA-256 of the assembled file (optional)',
+    resource_name VARCHAR(200),
+    resource_type VARCHAR(50),
+    description TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'UPLOADING' COMMENT 'UPLOADING, COMPLETING, EXPIRED, ABORTED',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_created_at (created_at)
+);
+
+-- Storage Usage Table (存储用量统计表，按课程与上传者累计资源大小)
+CREATE TABLE IF NOT EXISTS storage_usage (
+    owner_type VARCHAR(20) NOT NULL COMMENT 'COURSE, UPLOADER',
+    owner_id VARCHAR(50) NOT NULL,
+    total_bytes BIGINT NOT NULL DEFAULT 0,
+    file_count INT NOT NULL DEFAULT 0,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (owner_type, owner_id)
+);
+
+-- 根据现有资源重算存储用量（首次部署或统计出现偏差时执行）
+INSERT INTO storage_usage (owner_type, owner_id, total_bytes, file_count)
+SELECT 'COURSE', course_id, COALESCE(SUM(file_size), 0), COUNT(*) FROM course_resources GROUP BY course_id
+ON DUPLICATE KEY UPDATE total_bytes = VALUES(total_bytes), file_count = VALUES(file_count);
+
+INSERT INTO storage_usage (owner_type, owner_id, total_bytes, file_count)
+SELECT 'UPLOADER', uploader_id, COALESCE(SUM(file_size), 0), COUNT(*) FROM course_resources GROUP BY uploader_id
+ON DUPLICATE KEY UPDATE total_bytes = VALUES(total_bytes), file_count = VALUES(file_count);
+
+-- Refresh Tokens Table (刷新令牌表，只保存令牌的 SHA-256 摘要)
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    token_hash CHAR(64) PRIMARY KEY COMMENT 'SHA-256 of the refresh token',
+    user_id VARCHAR(50) NOT NULL,
+    family_id VARCHAR(50) NOT NULL COMMENT '同一次登录轮换出的令牌属于同一族',
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' COMMENT 'ACTIVE, ROTATED, REVOKED',
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_user_id (user_id),
+    INDEX idx_family_id (family_id),
+    INDEX idx_expires_at (expires_at)
+);
+
+-- Revoked Access Tokens Table (已吊销的访问令牌，过期后可删除)
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_id VARCHAR(50) PRIMARY KEY COMMENT 'JWT jti',
+    expires_at DATETIME NOT NULL,
+    revoked_at DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_revoked_at (revoked_at),
+    INDEX idx_expires_at (expires_at)
+);
+
+-- 升级已有数据库：过期验证码按 expires_at 分批清理
+-- ALTER TABLE sms_verification_codes ADD INDEX idx_expires_at (expires_at);
+
+-- JWT Signing Keys Table (各签名节点发布的公钥，所有节点合并后用于验证令牌)
+CREATE TABLE IF NOT EXISTS jwt_signing_keys (
+    kid VARCHAR(64) PRIMARY KEY COMMENT 'JWT key id',
+    public_jwk TEXT NOT NULL COMMENT 'public key as JWK JSON',
+    created_at DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_created_at (created_at)
 );
@@ -3,9 +3,11 @@ package com.course.system;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.course.system.mapper")
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,199 @@
+package com.course.system.bandwidth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 文件传输带宽限制
+ *
+ * 下载与上传各有一个全局令牌桶和按用户划分的令牌桶（未登录请求按客户端 IP 划分），
+ * 速率为 0 时不限制。传输按小块申请令牌，同时受全局与用户两个桶约束，
+ * 并发传输按申请顺序交替获得带宽，少数大流量用户不会占满出口带宽。
+ *
+ * 限速等待时间通过 /actuator/metrics/file.bandwidth.throttled 查看。
+ */
+@Component
+public class BandwidthLimiter {
+
+    /**
+     * 每次申请令牌的最大字节数，越小并发传输之间越公平
+     */
+    static final int SLICE_SIZE = 16 * 1024;
+
+    /**
+     * 传输方向
+     */
+    public enum Direction {
+        DOWNLOAD, UPLOAD
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.bandwidth.download.global-rate:0}")
+    private DataSize downloadGlobalRate;
+
+    @Value("${file.bandwidth.download.per-user-rate:0}")
+    private DataSize downloadPerUserRate;
+
+    @Value("${file.bandwidth.upload.global-rate:0}")
+    private DataSize uploadGlobalRate;
+
+    @Value("${file.bandwidth.upload.per-user-rate:0}")
+    private DataSize uploadPerUserRate;
+
+    /**
+     * 令牌桶容量（允许的突发量），相当于多少秒的速率
+     */
+    @Value("${file.bandwidth.burst-seconds:1}")
+    private double burstSeconds;
+
+    /**
+     * 每个方向最多跟踪的用户/IP 数量，超出时淘汰最久未访问的令牌桶
+     */
+    @Value("${file.bandwidth.max-keys:100000}")
+    private long maxKeys;
+
+    private Limits download;
+
+    private Limits upload;
+
+    /**
+     * 一个方向上的全局与按用户限速
+     */
+    private class Limits {
+        private final TokenBucket global;
+        private final Cache<String, TokenBucket> perUser;
+        private final long perUserRate;
+        private final Counter throttled;
+
+        private Limits(Direction direction, DataSize globalRate, DataSize perUserRate) {
+            this.global = globalRate.toBytes() > 0 ? newBucket(globalRate.toBytes()) : null;
+            this.perUserRate = perUserRate.toBytes();
+            this.perUser = this.perUserRate > 0
+                    ? Caffeine.newBuilder()
+                            .maximumSize(maxKeys)
+                            .expireAfterAccess(Duration.ofMinutes(10))
+                            .build()
+                    : null;
+            this.throttled = Counter.builder("file.bandwidth.throttled")
+                    .baseUnit("seconds")
+                    .description("Time transfers spent waiting for bandwidth")
+                    .tag("direction", direction.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+
+        private boolean unlimited() {
+            return global == null && perUser == null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        download = new Limits(Direction.DOWNLOAD, downloadGlobalRate, downloadPerUserRate);
+        upload = new Limits(Direction.UPLOAD, uploadGlobalRate, uploadPerUserRate);
+    }
+
+    /**
+     * 获取当前请求在指定方向上的限速器
+     *
+     * @return 未配置限速时返回 null，调用方按原方式传输（可使用 sendfile 等零拷贝方式）
+     */
+    public Throttle throttle(HttpServletRequest request, Direction direction) {
+        Limits limits = direction == Direction.DOWNLOAD ? download : upload;
+        if (limits.unlimited()) {
+            return null;
+        }
+        TokenBucket user = limits.perUser != null
+                ? limits.perUser.get(clientKey(request), key -> newBucket(limits.perUserRate))
+                : null;
+        return new Throttle(limits.global, user, limits.throttled);
+    }
+
+    private TokenBucket newBucket(long bytesPerSecond) {
+        long capacity = Math.max(SLICE_SIZE, (long) (bytesPerSecond * burstSeconds));
+        return new TokenBucket(bytesPerSecond, capacity);
+    }
+
+    /**
+     * 已登录请求按用户ID限速，否则按客户端 IP（反向代理后由 server.forward-headers-strategy 还原）
+     */
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * 单次传输的限速器
+     */
+    public static class Throttle {
+        private final TokenBucket global;
+        private final TokenBucket user;
+        private final Counter throttled;
+
+        private Throttle(TokenBucket global, TokenBucket user, Counter throttled) {
+            this.global = global;
+            this.user = user;
+            this.throttled = throttled;
+        }
+
+        /**
+         * 申请传输指定字节数，令牌不足时阻塞等待
+         */
+        void acquire(int bytes) throws InterruptedIOException {
+            long waitNanos = 0;
+            if (user != null) {
+                waitNanos = user.reserve(bytes);
+            }
+            if (global != null) {
+                waitNanos = Math.max(waitNanos, global.reserve(bytes));
+            }
+            if (waitNanos <= 0) {
+                return;
+            }
+
+            long deadline = System.nanoTime() + waitNanos;
+            long remaining = waitNanos;
+            while (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            throttled.increment(waitNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        public OutputStream wrap(OutputStream out) {
+            return new ThrottledOutputStream(out, this);
+        }
+
+        public InputStream wrap(InputStream in) {
+            return new ThrottledInputStream(in, this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.course.system.bandwidth;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 限速输入流：每读取一小块后按实际读取的字节数申请令牌
+ *
+ * 读取受阻时请求体停留在 TCP 接收窗口中，由客户端自然放慢发送
+ */
+class ThrottledInputStream extends FilterInputStream {
+
+    private final BandwidthLimiter.Throttle throttle;
+
+    ThrottledInputStream(InputStream in, BandwidthLimiter.Throttle throttle) {
+        super(in);
+        this.throttle = throttle;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            throttle.acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, Math.min(len, BandwidthLimiter.SLICE_SIZE));
+        if (read > 0) {
+            throttle.acquire(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, BandwidthLimiter.SLICE_SIZE));
+        if (skipped > 0) {
+            throttle.acquire((int) skipped);
+        }
+        return skipped;
+    }
+}
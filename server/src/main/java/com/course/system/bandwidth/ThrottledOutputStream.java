@@ -0,0 +1,35 @@
+package com.course.system.bandwidth;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 限速输出流：每写出一小块前先申请令牌
+ */
+class ThrottledOutputStream extends FilterOutputStream {
+
+    private final BandwidthLimiter.Throttle throttle;
+
+    ThrottledOutputStream(OutputStream out, BandwidthLimiter.Throttle throttle) {
+        super(out);
+        this.throttle = throttle;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        throttle.acquire(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int slice = Math.min(len, BandwidthLimiter.SLICE_SIZE);
+            throttle.acquire(slice);
+            out.write(b, off, slice);
+            off += slice;
+            len -= slice;
+        }
+    }
+}
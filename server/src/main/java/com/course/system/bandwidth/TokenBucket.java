@@ -0,0 +1,44 @@
+package com.course.system.bandwidth;
+
+/**
+ * 令牌桶 (单位: 字节)
+ *
+ * 采用预约方式：每次申请立即扣除令牌（允许为负），返回需要等待的时间。
+ * 后来的申请排在已有欠额之后，多个并发传输按申请顺序交替获得带宽。
+ */
+class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long bytesPerSecond;
+
+    private final long capacity;
+
+    private double available;
+
+    private long lastRefillNanos;
+
+    TokenBucket(long bytesPerSecond, long capacity) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.capacity = capacity;
+        this.available = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 预约指定字节数的令牌
+     *
+     * @return 需要等待的纳秒数，令牌充足时返回 0
+     */
+    synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefillNanos) * (double) bytesPerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+
+        available -= bytes;
+        if (available >= 0) {
+            return 0;
+        }
+        return (long) (-available * NANOS_PER_SECOND / bytesPerSecond);
+    }
+}
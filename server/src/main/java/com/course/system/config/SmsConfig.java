@@ -1,9 +1,26 @@
 package com.course.system.config;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * SMS Configuration Properties
  * 短信服务配置类
@@ -20,6 +37,8 @@ public class SmsConfig {
 
     /**
      * SMS Provider: aliyun, tencent, mock
+     * 多个服务商以逗号分隔 (如 aliyun,tencent)，按顺序作为优先级同时启用并自动切换；
+     * mock:名称 表示使用 mockInstances 中同名配置的模拟服务商
      */
     private String provider = "mock";
 
@@ -33,6 +52,76 @@ public class SmsConfig {
      */
     private TencentConfig tencent = new TencentConfig();
 
+    /**
+     * 发送频率限制
+     */
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+
+    /**
+     * 异步发送队列、重试与熔断
+     */
+    private DispatchConfig dispatch = new DispatchConfig();
+
+    /**
+     * 模拟模式的延迟与故障注入（压测发送队列用）
+     */
+    private MockConfig mock = new MockConfig();
+
+    /**
+     * 具名模拟服务商 (sms.provider 中的 mock:名称)，用于本地演练多服务商切换
+     */
+    private Map<String, MockConfig> mockInstances = new HashMap<>();
+
+    /**
+     * 多服务商切换与对冲发送
+     */
+    private FailoverConfig failover = new FailoverConfig();
+
+    /**
+     * 验证码存储方式与过期记录清理
+     */
+    private CodeStoreConfig codeStore = new CodeStoreConfig();
+
+    /**
+     * 课程群发通知
+     */
+    private BroadcastConfig broadcast = new BroadcastConfig();
+
+    /**
+     * 多服务商组合发送时调用服务商的线程池，在应用关闭时停止
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ThreadPoolExecutor providerExecutor;
+
+    /**
+     * 获取调用服务商的线程池（首次调用时创建）
+     *
+     * @param providers 服务商数量，每个服务商 dispatch.workers 个线程
+     */
+    public synchronized ExecutorService providerExecutor(int providers) {
+        if (providerExecutor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            int threads = Math.max(2, dispatch.getWorkers() * providers);
+            providerExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(dispatch.getQueueCapacity()),
+                    r -> {
+                        Thread t = new Thread(r, "sms-provider-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            providerExecutor.allowCoreThreadTimeOut(true);
+        }
+        return providerExecutor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdownProviderExecutor() {
+        if (providerExecutor != null) {
+            providerExecutor.shutdownNow();
+        }
+    }
+
     @Data
     public static class AliyunConfig {
         /**
@@ -58,6 +147,12 @@ public class SmsConfig {
          * 模板内容示例: "您的验证码是${code}，5分钟内有效。"
          */
         private String templateCode;
+
+        /**
+         * 课程通知模板Code（课程群发使用）
+         * 模板内容示例: "课程通知：${content}"
+         */
+        private String noticeTemplateCode;
     }
 
     @Data
@@ -91,5 +186,226 @@ public class SmsConfig {
          * 模板内容示例: "您的验证码是{1}，{2}分钟内有效。"
          */
         private String templateId;
+
+        /**
+         * 课程通知模板ID（课程群发使用）
+         * 模板内容示例: "课程通知：{1}"
+         */
+        private String noticeTemplateId;
+    }
+
+    @Data
+    public static class DispatchConfig {
+        /**
+         * 发送线程数
+         */
+        private int workers = 4;
+
+        /**
+         * 等待发送的短信数量上限，队列已满时发送请求直接失败
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 每条短信最多尝试次数（含首次）
+         */
+        private int maxAttempts = 4;
+
+        /**
+         * 首次重试的退避上限，之后每次翻倍（实际等待为 0 到上限之间的随机值）
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        /**
+         * 单次退避的最大值
+         */
+        private Duration maxBackoff = Duration.ofSeconds(10);
+
+        /**
+         * 入队后超过该时间仍未发送成功则放弃（验证码 5 分钟过期）
+         */
+        private Duration deadline = Duration.ofMinutes(2);
+
+        /**
+         * 服务商连续失败该次数后熔断
+         */
+        private int breakerFailureThreshold = 5;
+
+        /**
+         * 熔断持续时间，之后放行一次试探请求
+         */
+        private Duration breakerOpenDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class FailoverConfig {
+        /**
+         * 主服务商超过耗时预算仍未返回时，是否同时向下一个服务商发送（对冲）
+         */
+        private boolean hedgeEnabled = true;
+
+        /**
+         * 对冲的耗时预算；为 0 时使用主服务商的滚动 p95 耗时
+         */
+        private Duration hedgeBudget = Duration.ZERO;
+
+        /**
+         * 对冲预算的下限，避免 p95 很小时过早对冲造成重复发送
+         */
+        private Duration minHedgeDelay = Duration.ofMillis(300);
+
+        /**
+         * 等待所有服务商结果的最长时间
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * 滚动统计的时间窗口与最多样本数
+         */
+        private Duration statsWindow = Duration.ofMinutes(5);
+
+        private int statsSamples = 200;
+
+        /**
+         * 样本数少于该值时不使用统计结果
+         */
+        private int minSamples = 20;
+
+        /**
+         * 样本不足时假定的耗时，用于与有统计的服务商比较
+         */
+        private Duration expectedLatency = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class CodeStoreConfig {
+        /**
+         * 验证码存储方式: database (默认，多节点共享) 或 memory (进程内缓存，仅适用于单节点部署)
+         */
+        private String mode = "database";
+
+        /**
+         * memory 模式下是否同时写入 sms_verification_codes 表（审计用，校验不读取数据库）
+         */
+        private boolean writeThrough = true;
+
+        /**
+         * memory 模式下最多保存的验证码数量
+         */
+        private long maxEntries = 100_000;
+
+        /**
+         * 过期记录的保留时间，超过后由定时任务删除
+         */
+        private Duration retention = Duration.ofDays(1);
+
+        /**
+         * 每批删除的行数，批次之间释放锁
+         */
+        private int purgeBatchSize = 1000;
+
+        /**
+         * 每次清理最多删除的批数，剩余记录留到下次
+         */
+        private int purgeMaxBatches = 100;
+    }
+
+    @Data
+    public static class BroadcastConfig {
+        /**
+         * 同时进行的批量发送请求数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 每批最多号码数，同时不超过服务商接口的上限
+         */
+        private int batchSize = 100;
+
+        /**
+         * 通知内容最大长度
+         */
+        private int maxContentLength = 200;
+
+        /**
+         * 等待执行的群发任务上限，已满时拒绝新任务
+         */
+        private int maxQueuedJobs = 10;
+
+        /**
+         * 任务状态的保留时间
+         */
+        private Duration jobRetention = Duration.ofDays(1);
+    }
+
+    @Data
+    public static class MockConfig {
+        /**
+         * 每次发送的固定延迟
+         */
+        private Duration latency = Duration.ZERO;
+
+        /**
+         * 在固定延迟之上增加的随机延迟上限
+         */
+        private Duration latencyJitter = Duration.ZERO;
+
+        /**
+         * 发送失败的概率 (0.0 - 1.0)
+         */
+        private double failureRate = 0.0;
+
+        /**
+         * 是否在控制台打印验证码框（压测时关闭）
+         */
+        private boolean printToConsole = true;
+    }
+
+    @Data
+    public static class RateLimitConfig {
+        /**
+         * 是否启用内存限流；关闭时仅按数据库中最近一条验证码判断（同一手机号同一类型 1 分钟一次）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 同一手机号同一类型
+         */
+        private List<Rule> phone = new ArrayList<>(List.of(
+                new Rule(Duration.ofMinutes(1), 1),
+                new Rule(Duration.ofHours(1), 5)));
+
+        /**
+         * 同一客户端 IP（教室等 NAT 出口下有多名学生，阈值不宜过低）
+         */
+        private List<Rule> ip = new ArrayList<>(List.of(
+                new Rule(Duration.ofMinutes(1), 30),
+                new Rule(Duration.ofHours(1), 200)));
+
+        /**
+         * 全局（所有请求合计，防止短信费用被刷）
+         */
+        private List<Rule> global = new ArrayList<>(List.of(
+                new Rule(Duration.ofMinutes(1), 600)));
+
+        /**
+         * 每个维度最多跟踪的键数量，超出时淘汰最久未访问的键
+         */
+        private long maxKeys = 100_000;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rule {
+        /**
+         * 滑动窗口长度
+         */
+        private Duration window;
+
+        /**
+         * 窗口内最多发送次数
+         */
+        private int limit;
     }
 }
@@ -0,0 +1,73 @@
+package com.course.system.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Resource Storage Configuration Properties
+ * 课程资源存储配置类
+ *
+ * 支持两种存储后端:
+ * 1. local - 本地文件系统（file.upload-dir）
+ * 2. s3 - S3 兼容对象存储（AWS S3、MinIO、各云厂商 S3 兼容接口），多节点部署时使用
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "file.storage")
+public class StorageConfig {
+
+    /**
+     * Storage type: local, s3
+     */
+    private String type = "local";
+
+    /**
+     * S3 Compatible Storage Configuration
+     */
+    private S3Config s3 = new S3Config();
+
+    @Data
+    public static class S3Config {
+        /**
+         * 服务地址，例如 MinIO: http://localhost:9000
+         * 为空时使用 AWS 官方地址
+         */
+        private String endpoint;
+
+        /**
+         * 区域，例如 us-east-1（MinIO 可任意填写）
+         */
+        private String region = "us-east-1";
+
+        /**
+         * 存储桶名称
+         */
+        private String bucket;
+
+        /**
+         * Access Key
+         */
+        private String accessKey;
+
+        /**
+         * Secret Key
+         */
+        private String secretKey;
+
+        /**
+         * 对象键前缀，例如 "course-resources/"
+         */
+        private String keyPrefix = "";
+
+        /**
+         * 使用路径风格访问 (http://host/bucket/key)，MinIO 需要开启
+         */
+        private boolean pathStyleAccess = true;
+
+        /**
+         * 分段上传的分段大小 (字节)，超过该大小的文件使用分段上传
+         */
+        private long multipartPartSize = 64L * 1024 * 1024;
+    }
+}
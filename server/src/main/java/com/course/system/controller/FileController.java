@@ -1,23 +1,36 @@
 package com.course.system.controller;
 
+import com.course.system.bandwidth.BandwidthLimiter;
+import com.course.system.download.CourseBundleWriter;
+import com.course.system.download.DownloadTarget;
+import com.course.system.download.RangeFileSender;
+import com.course.system.entity.ChunkedUpload;
+import com.course.system.entity.Course;
 import com.course.system.entity.CourseResource;
+import com.course.system.preview.ThumbnailGenerator;
+import com.course.system.security.DownloadUrlSigner;
+import com.course.system.service.ChunkedUploadService;
+import com.course.system.service.CourseService;
 import com.course.system.service.CourseResourceService;
+import com.course.system.service.StorageUsageService;
+import com.course.system.storage.StorageKeys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.net.MalformedURLException;
-import java.net.URLEncoder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +46,30 @@ public class FileController {
     @Autowired
     private CourseResourceService resourceService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private RangeFileSender rangeFileSender;
+
+    @Autowired
+    private CourseBundleWriter courseBundleWriter;
+
+    @Autowired
+    private DownloadUrlSigner downloadUrlSigner;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Autowired
+    private BandwidthLimiter bandwidthLimiter;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private CourseService courseService;
+
     @Value("${file.base-url:http://localhost:8080/api/files}")
     private String baseUrl;
 
@@ -66,6 +103,7 @@ public class FileController {
                 resourceData.put("resourceName", resource.getResourceName());
                 resourceData.put("originalFileName", resource.getOriginalFileName());
                 resourceData.put("fileSize", resource.getFileSize());
+                resourceData.put("contentHash", resource.getContentHash());
                 resourceData.put("fileType", resource.getFileType());
                 resourceData.put("resourceType", resource.getResourceType());
                 resourceData.put("downloadUrl", downloadUrl);
@@ -86,6 +124,239 @@ public class FileController {
         return response;
     }
 
+    /**
+     * 秒传：服务器已有相同内容时无需再次上传文件
+     * POST /api/files/upload/instant
+     *
+     * 返回 404 时客户端应改为调用 /api/files/upload 上传完整文件
+     */
+    @PostMapping("/upload/instant")
+    public Map<String, Object> uploadByHash(
+            @RequestParam("courseId") String courseId,
+            @RequestParam("contentHash") String contentHash,
+            @RequestParam("fileSize") long fileSize,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "fileType", required = false) String fileType,
+            @RequestParam(value = "resourceName", required = false) String resourceName,
+            @RequestParam(value = "resourceType", required = false, defaultValue = "courseware") String resourceType,
+            @RequestParam(value = "description", required = false) String description) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            String uploaderId = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+            CourseResource resource = resourceService.uploadResourceByHash(courseId, uploaderId,
+                    contentHash.toLowerCase(), fileSize, fileName, fileType, resourceName, resourceType, description);
+
+            if (resource != null) {
+                Map<String, Object> resourceData = new HashMap<>();
+                resourceData.put("resourceId", resource.getResourceId());
+                resourceData.put("resourceName", resource.getResourceName());
+                resourceData.put("originalFileName", resource.getOriginalFileName());
+                resourceData.put("fileSize", resource.getFileSize());
+                resourceData.put("contentHash", resource.getContentHash());
+                resourceData.put("fileType", resource.getFileType());
+                resourceData.put("resourceType", resource.getResourceType());
+                resourceData.put("downloadUrl", baseUrl + "/download/" + resource.getResourceId());
+                resourceData.put("uploadTime", resource.getUploadTime());
+
+                response.put("code", 200);
+                response.put("message", "Upload successful");
+                response.put("data", resourceData);
+            } else {
+                response.put("code", 404);
+                response.put("message", "Content not found, please upload the file");
+            }
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+        } catch (Exception e) {
+            response.put("code", 500);
+            response.put("message", "Upload error: " + e.getMessage());
+        }
+
+        return response;
+    }
+
+    /**
+     * 创建分片上传会话
+     * POST /api/files/chunked/init
+     */
+    @PostMapping("/chunked/init")
+    public Map<String, Object> initChunkedUpload(
+            @RequestParam("courseId") String courseId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam("fileSize") long fileSize,
+            @RequestParam(value = "fileType", required = false) String fileType,
+            @RequestParam(value = "contentHash", required = false) String contentHash,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize,
+            @RequestParam(value = "resourceName", required = false) String resourceName,
+            @RequestParam(value = "resourceType", required = false, defaultValue = "courseware") String resourceType,
+            @RequestParam(value = "description", required = false) String description) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            String uploaderId = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+            ChunkedUpload upload = chunkedUploadService.initUpload(courseId, uploaderId, fileName, fileSize,
+                    fileType, contentHash != null ? contentHash.toLowerCase() : null, chunkSize,
+                    resourceName, resourceType, description);
+
+            Map<String, Object> uploadData = new HashMap<>();
+            uploadData.put("uploadId", upload.getUploadId());
+            uploadData.put("chunkSize", upload.getChunkSize());
+            uploadData.put("totalChunks", upload.getTotalChunks());
+
+            response.put("code", 200);
+            response.put("data", uploadData);
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+        }
+
+        return response;
+    }
+
+    /**
+     * 上传一个分片（请求体为分片的原始字节）
+     * PUT /api/files/chunked/{uploadId}/chunks/{index}
+     *
+     * 可通过 X-Chunk-Sha256 请求头提供分片摘要以校验完整性
+     */
+    @PutMapping("/chunked/{uploadId}/chunks/{index}")
+    public Map<String, Object> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String chunkSha256,
+            HttpServletRequest request) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        ChunkedUpload upload = chunkedUploadService.getUpload(uploadId, currentUserId());
+        if (upload == null) {
+            response.put("code", 404);
+            response.put("message", "Upload not found");
+            return response;
+        }
+
+        try {
+            InputStream in = request.getInputStream();
+            BandwidthLimiter.Throttle throttle = bandwidthLimiter.throttle(request, BandwidthLimiter.Direction.UPLOAD);
+            chunkedUploadService.putChunk(upload, index, throttle != null ? throttle.wrap(in) : in, chunkSha256);
+            response.put("code", 200);
+            response.put("message", "Chunk received");
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+        } catch (IOException e) {
+            response.put("code", 500);
+            response.put("message", "Chunk upload error: " + e.getMessage());
+        }
+
+        return response;
+    }
+
+    /**
+     * 查询已接收的分片，用于断点续传
+     * GET /api/files/chunked/{uploadId}
+     */
+    @GetMapping("/chunked/{uploadId}")
+    public Map<String, Object> getChunkedUpload(@PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        ChunkedUpload upload = chunkedUploadService.getUpload(uploadId, currentUserId());
+        if (upload == null) {
+            response.put("code", 404);
+            response.put("message", "Upload not found");
+            return response;
+        }
+
+        Map<String, Object> uploadData = new HashMap<>();
+        uploadData.put("uploadId", upload.getUploadId());
+        uploadData.put("fileSize", upload.getFileSize());
+        uploadData.put("chunkSize", upload.getChunkSize());
+        uploadData.put("totalChunks", upload.getTotalChunks());
+        uploadData.put("receivedChunks", chunkedUploadService.getReceivedChunks(upload));
+
+        response.put("code", 200);
+        response.put("data", uploadData);
+        return response;
+    }
+
+    /**
+     * 合并分片并创建课程资源
+     * POST /api/files/chunked/{uploadId}/complete
+     */
+    @PostMapping("/chunked/{uploadId}/complete")
+    public Map<String, Object> completeChunkedUpload(@PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        ChunkedUpload upload = chunkedUploadService.getUpload(uploadId, currentUserId());
+        if (upload == null) {
+            response.put("code", 404);
+            response.put("message", "Upload not found");
+            return response;
+        }
+
+        try {
+            CourseResource resource = chunkedUploadService.complete(upload);
+            if (resource != null) {
+                Map<String, Object> resourceData = new HashMap<>();
+                resourceData.put("resourceId", resource.getResourceId());
+                resourceData.put("resourceName", resource.getResourceName());
+                resourceData.put("originalFileName", resource.getOriginalFileName());
+                resourceData.put("fileSize", resource.getFileSize());
+                resourceData.put("contentHash", resource.getContentHash());
+                resourceData.put("fileType", resource.getFileType());
+                resourceData.put("resourceType", resource.getResourceType());
+                resourceData.put("downloadUrl", baseUrl + "/download/" + resource.getResourceId());
+                resourceData.put("uploadTime", resource.getUploadTime());
+
+                response.put("code", 200);
+                response.put("message", "Upload successful");
+                response.put("data", resourceData);
+            } else {
+                response.put("code", 500);
+                response.put("message", "Upload failed");
+            }
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+        } catch (IOException e) {
+            response.put("code", 500);
+            response.put("message", "Upload error: " + e.getMessage());
+        }
+
+        return response;
+    }
+
+    /**
+     * 取消分片上传
+     * DELETE /api/files/chunked/{uploadId}
+     */
+    @DeleteMapping("/chunked/{uploadId}")
+    public Map<String, Object> abortChunkedUpload(@PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        ChunkedUpload upload = chunkedUploadService.getUpload(uploadId, currentUserId());
+        if (upload == null) {
+            response.put("code", 404);
+            response.put("message", "Upload not found");
+            return response;
+        }
+
+        if (!chunkedUploadService.abort(upload)) {
+            response.put("code", 400);
+            response.put("message", "Upload is completing or already aborted");
+            return response;
+        }
+        response.put("code", 200);
+        response.put("message", "Upload aborted");
+        return response;
+    }
+
     /**
      * 获取课程的所有资源
      * GET /api/files/course/{courseId}
@@ -107,16 +378,91 @@ public class FileController {
         return response;
     }
 
+    /**
+     * 打包下载课程的所有可见资源
+     * GET /api/files/course/{courseId}/bundle
+     */
+    @GetMapping("/course/{courseId}/bundle")
+    public void downloadCourseBundle(@PathVariable String courseId,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response) throws IOException {
+        List<CourseResource> resources = resourceService.getResourcesByCourse(courseId);
+        if (resources.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("course-" + courseId + ".zip", StandardCharsets.UTF_8)
+                .build().toString());
+
+        OutputStream out = response.getOutputStream();
+        BandwidthLimiter.Throttle throttle = bandwidthLimiter.throttle(request, BandwidthLimiter.Direction.DOWNLOAD);
+        // 只统计完整写入压缩包的资源；客户端中途断开时 write 抛出 IOException，不计数
+        List<String> written = courseBundleWriter.write(resources, throttle != null ? throttle.wrap(out) : out);
+        for (String resourceId : written) {
+            resourceService.incrementDownloadCount(resourceId);
+        }
+    }
+
+    /**
+     * 获取课程的存储用量
+     * GET /api/files/usage/course/{courseId}
+     */
+    @GetMapping("/usage/course/{courseId}")
+    public Map<String, Object> getCourseUsage(@PathVariable String courseId) {
+        Map<String, Object> response = new HashMap<>();
+
+        Course course = courseService.getCourseById(courseId);
+        if (course == null) {
+            response.put("code", 404);
+            response.put("message", "Course not found");
+            return response;
+        }
+        String userId = currentUserId();
+        if (!userId.equals(course.getTeacherId()) && !userId.equals(course.getCreatorId()) && !isOfficer()) {
+            response.put("code", 403);
+            response.put("message", "Only the course teacher can view its storage usage");
+            return response;
+        }
+
+        response.put("code", 200);
+        response.put("data", storageUsageService.getCourseUsage(courseId));
+        return response;
+    }
+
+    /**
+     * 获取上传者的存储用量
+     * GET /api/files/usage/uploader/{uploaderId}
+     */
+    @GetMapping("/usage/uploader/{uploaderId}")
+    public Map<String, Object> getUploaderUsage(@PathVariable String uploaderId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!uploaderId.equals(currentUserId()) && !isOfficer()) {
+            response.put("code", 403);
+            response.put("message", "Cannot view another user's storage usage");
+            return response;
+        }
+        response.put("code", 200);
+        response.put("data", storageUsageService.getUploaderUsage(uploaderId));
+        return response;
+    }
+
     /**
      * 获取资源详情
      * GET /api/files/{resourceId}
      */
     @GetMapping("/{resourceId}")
-    public Map<String, Object> getResourceById(@PathVariable String resourceId) {
+    public Map<String, Object> getResourceById(@PathVariable String resourceId, WebRequest webRequest) {
         Map<String, Object> response = new HashMap<>();
 
         CourseResource resource = resourceService.getResourceById(resourceId);
         if (resource != null) {
+            // 元数据未变化时返回 304（下载次数、可见性等字段变化会改变 ETag）
+            if (webRequest.checkNotModified(metadataEtag(resource))) {
+                return null;
+            }
             response.put("code", 200);
             response.put("data", resource);
             response.put("downloadUrl", baseUrl + "/download/" + resourceId);
@@ -130,38 +476,112 @@ public class FileController {
     /**
      * 下载资源
      * GET /api/files/download/{resourceId}
+     *
+     * 支持 Range 请求（206 Partial Content），用于视频拖动与断点续传
      */
     @GetMapping("/download/{resourceId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String resourceId) {
+    public void downloadFile(@PathVariable String resourceId,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
         CourseResource courseResource = resourceService.getResourceById(resourceId);
 
         if (courseResource == null) {
-            return ResponseEntity.notFound().build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
-        try {
-            Path filePath = Paths.get(courseResource.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                // 增加下载次数
-                resourceService.incrementDownloadCount(resourceId);
-
-                // 处理文件名编码
-                String encodedFileName = URLEncoder.encode(
-                        courseResource.getOriginalFileName(), StandardCharsets.UTF_8)
-                        .replace("+", "%20");
-
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                        .header(HttpHeaders.CONTENT_DISPOSITION,
-                                "attachment; filename*=UTF-8''" + encodedFileName)
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.internalServerError().build();
+        boolean sent = rangeFileSender.send(request, response, DownloadTarget.of(courseResource));
+        if (!sent) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 增加下载次数（仅统计从头开始的请求，拖动、续传与 304 不重复计数）
+        if (rangeFileSender.countsAsDownload(request, response)) {
+            resourceService.incrementDownloadCount(resourceId);
+        }
+    }
+
+    /**
+     * 获取资源缩略图 (PNG)
+     * GET /api/files/{resourceId}/thumbnail
+     *
+     * 缩略图尚未生成时返回 404，并重新提交后台生成
+     */
+    @GetMapping("/{resourceId}/thumbnail")
+    public void getThumbnail(@PathVariable String resourceId,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        CourseResource resource = resourceService.getResourceById(resourceId);
+        if (resource == null || !thumbnailGenerator.supports(resource)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        DownloadTarget source = DownloadTarget.of(resource);
+        DownloadTarget thumbnail = DownloadTarget.builder()
+                .resourceId(resourceId)
+                .storageKey(StorageKeys.thumbnailKey(source.getStorageKey()))
+                .contentType("image/png")
+                .fileName("thumbnail.png")
+                .inline(true)
+                .etag(source.getEtag() != null ? source.getEtag() + "-thumb" : null)
+                .lastModified(source.getLastModified())
+                .build();
+        if (!rangeFileSender.send(request, response, thumbnail)) {
+            thumbnailGenerator.submit(resource);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * 获取短时有效的签名下载链接
+     * GET /api/files/{resourceId}/signed-url
+     */
+    @GetMapping("/{resourceId}/signed-url")
+    public Map<String, Object> getSignedDownloadUrl(@PathVariable String resourceId) {
+        Map<String, Object> response = new HashMap<>();
+
+        CourseResource resource = resourceService.getResourceById(resourceId);
+        if (resource == null) {
+            response.put("code", 404);
+            response.put("message", "Resource not found");
+            return response;
+        }
+
+        String token = downloadUrlSigner.sign(DownloadTarget.of(resource));
+
+        Map<String, Object> urlData = new HashMap<>();
+        urlData.put("url", baseUrl + "/signed/" + token);
+        urlData.put("expiresIn", downloadUrlSigner.getTtlSeconds());
+
+        response.put("code", 200);
+        response.put("data", urlData);
+        return response;
+    }
+
+    /**
+     * 通过签名链接下载资源（无需登录令牌，不查询数据库）
+     * GET /api/files/signed/{token}
+     */
+    @GetMapping("/signed/{token}")
+    public void downloadSigned(@PathVariable String token,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        DownloadUrlSigner.SignedDownload download = downloadUrlSigner.verify(token);
+        if (download == null) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        boolean sent = rangeFileSender.send(request, response, download.toTarget());
+        if (!sent) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (rangeFileSender.countsAsDownload(request, response)) {
+            resourceService.incrementDownloadCount(download.getResourceId());
         }
     }
 
@@ -205,4 +625,29 @@ public class FileController {
         }
         return response;
     }
+
+    /**
+     * 根据响应中会返回的元数据字段计算 ETag
+     */
+    private String metadataEtag(CourseResource resource) {
+        String fields = String.join("|",
+                resource.getResourceId(), resource.getCourseId(), resource.getUploaderId(),
+                String.valueOf(resource.getContentHash()),
+                String.valueOf(resource.getResourceName()), String.valueOf(resource.getResourceType()),
+                String.valueOf(resource.getDescription()), String.valueOf(resource.getOriginalFileName()),
+                String.valueOf(resource.getFileType()), String.valueOf(resource.getFileSize()),
+                String.valueOf(resource.getVisible()), String.valueOf(resource.getDownloadCount()),
+                String.valueOf(resource.getUploadTime()));
+        return DigestUtils.md5DigestAsHex(fields.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String currentUserId() {
+        return (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    private boolean isOfficer() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_OFFICER".equals(authority.getAuthority()));
+    }
 }
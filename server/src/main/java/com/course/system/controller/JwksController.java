@@ -0,0 +1,31 @@
+package com.course.system.controller;
+
+import com.course.system.security.JwtKeyStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 公钥集，供只负责验证的 API 节点或其它服务下载到本地
+ */
+@RestController
+public class JwksController {
+
+    public static final String JWKS_PATH = "/api/auth/jwks.json";
+
+    @Autowired
+    private JwtKeyStore keyStore;
+
+    @GetMapping(JWKS_PATH)
+    public ResponseEntity<String> publicKeySet() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(keyStore.publicKeySetJson());
+    }
+}
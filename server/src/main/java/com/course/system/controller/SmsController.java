@@ -1,7 +1,15 @@
 package com.course.system.controller;
 
+import com.course.system.config.SmsConfig;
+import com.course.system.dto.BroadcastJob;
+import com.course.system.entity.Course;
+import com.course.system.service.CourseBroadcastService;
+import com.course.system.service.CourseService;
 import com.course.system.service.SmsService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -14,8 +22,17 @@ public class SmsController {
     @Autowired
     private SmsService smsService;
 
+    @Autowired
+    private CourseBroadcastService broadcastService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private SmsConfig smsConfig;
+
     @PostMapping("/send")
-    public Map<String, Object> sendCode(@RequestBody Map<String, String> request) {
+    public Map<String, Object> sendCode(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         Map<String, Object> response = new HashMap<>();
 
         String phoneNumber = request.get("phoneNumber");
@@ -38,7 +55,8 @@ public class SmsController {
             return response;
         }
 
-        boolean success = smsService.sendCode(phoneNumber, type);
+        // 反向代理后的真实客户端 IP 由 server.forward-headers-strategy 还原
+        boolean success = smsService.sendCode(phoneNumber, type, httpRequest.getRemoteAddr());
 
         if (success) {
             response.put("code", 200);
@@ -50,4 +68,88 @@ public class SmsController {
 
         return response;
     }
+
+    /**
+     * 向课程的所有学生群发通知短信（课程教师或管理员）
+     * Request body: { "courseId": "...", "content": "..." }
+     * 立即返回任务，进度通过 GET /api/sms/broadcast/{jobId} 查询
+     */
+    @PostMapping("/broadcast")
+    public Map<String, Object> broadcast(@RequestBody Map<String, String> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        String courseId = request.get("courseId");
+        String content = request.get("content");
+
+        if (courseId == null || content == null || content.isBlank()) {
+            response.put("code", 400);
+            response.put("message", "课程和通知内容不能为空");
+            return response;
+        }
+        if (content.length() > smsConfig.getBroadcast().getMaxContentLength()) {
+            response.put("code", 400);
+            response.put("message", "通知内容不能超过 " + smsConfig.getBroadcast().getMaxContentLength() + " 个字符");
+            return response;
+        }
+
+        Course course = courseService.getCourseById(courseId);
+        if (course == null) {
+            response.put("code", 404);
+            response.put("message", "Course not found");
+            return response;
+        }
+
+        String userId = currentUserId();
+        if (!userId.equals(course.getTeacherId()) && !userId.equals(course.getCreatorId()) && !isOfficer()) {
+            response.put("code", 403);
+            response.put("message", "只有课程教师可以群发通知");
+            return response;
+        }
+
+        BroadcastJob job = broadcastService.broadcast(courseId, userId, content);
+        if (job == null) {
+            response.put("code", 429);
+            response.put("message", "该课程已有群发任务进行中或任务队列已满，请稍后再试");
+            return response;
+        }
+
+        response.put("code", 200);
+        response.put("message", "群发任务已创建");
+        response.put("data", job);
+        return response;
+    }
+
+    /**
+     * 查询群发任务进度
+     */
+    @GetMapping("/broadcast/{jobId}")
+    public Map<String, Object> getBroadcast(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+
+        BroadcastJob job = broadcastService.getJob(jobId);
+        if (job == null) {
+            response.put("code", 404);
+            response.put("message", "群发任务不存在或已过期");
+            return response;
+        }
+        if (!currentUserId().equals(job.getSenderId()) && !isOfficer()) {
+            response.put("code", 403);
+            response.put("message", "无权查看该群发任务");
+            return response;
+        }
+
+        response.put("code", 200);
+        response.put("data", job);
+        return response;
+    }
+
+    private String currentUserId() {
+        return (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    private boolean isOfficer() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_OFFICER".equals(authority.getAuthority()));
+    }
 }
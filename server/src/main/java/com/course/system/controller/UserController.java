@@ -1,11 +1,16 @@
 package com.course.system.controller;
 
 import com.course.system.dto.LoginResponse;
+import com.course.system.dto.TokenResponse;
 import com.course.system.entity.User;
-import com.course.system.security.JwtUtil;
+import com.course.system.security.PasswordHashRejectedException;
+import com.course.system.service.AuthTokenService;
 import com.course.system.service.SmsService;
 import com.course.system.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,10 +23,10 @@ public class UserController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private SmsService smsService;
 
     @Autowired
-    private SmsService smsService;
+    private AuthTokenService authTokenService;
 
     @PostMapping("/register")
     public Map<String, Object> register(@RequestBody Map<String, Object> registerData) {
@@ -30,8 +35,9 @@ public class UserController {
         String phoneNumber = (String) registerData.get("phoneNumber");
         String code = (String) registerData.get("code");
 
-        // Verify SMS code
-        if (code == null || !smsService.verifyCode(phoneNumber, code, "REGISTER")) {
+        // Check SMS code first, but only use it up after hashing: if the hash pool rejects
+        // the request with 503 the client can retry with the same code
+        if (!smsService.checkCode(phoneNumber, code, "REGISTER")) {
             response.put("code", 400);
             response.put("message", "验证码无效或已过期");
             return response;
@@ -40,12 +46,18 @@ public class UserController {
         User user = new User();
         user.setPhoneNumber(phoneNumber);
         user.setUsername((String) registerData.get("username"));
-        user.setPassword((String) registerData.get("password"));
+        user.setPassword(userService.encodePassword((String) registerData.get("password")));
         user.setRole((String) registerData.get("role"));
         user.setRealName((String) registerData.get("realName"));
         user.setEmail((String) registerData.get("email"));
 
-        boolean success = userService.register(user);
+        if (!smsService.verifyCode(phoneNumber, code, "REGISTER")) {
+            response.put("code", 400);
+            response.put("message", "验证码无效或已过期");
+            return response;
+        }
+
+        boolean success = userService.registerWithEncodedPassword(user);
         if (success) {
             response.put("code", 200);
             response.put("message", "注册成功");
@@ -63,8 +75,8 @@ public class UserController {
         User user = userService.login(phoneNumber, password);
         Map<String, Object> response = new HashMap<>();
         if (user != null) {
-            // Generate JWT token
-            String token = jwtUtil.generateToken(user.getUserId(), user.getRole());
+            // Issue a short-lived access token and a refresh token
+            TokenResponse tokens = authTokenService.issueTokens(user);
 
             // Build login response WITHOUT password
             LoginResponse loginResponse = LoginResponse.builder()
@@ -79,7 +91,9 @@ public class UserController {
                     .college(user.getCollege())
                     .major(user.getMajor())
                     .className(user.getClassName())
-                    .token(token)
+                    .token(tokens.getToken())
+                    .refreshToken(tokens.getRefreshToken())
+                    .expiresIn(tokens.getExpiresIn())
                     .build();
 
             response.put("code", 200);
@@ -126,10 +140,30 @@ public class UserController {
         return response;
     }
 
+    @PostMapping("/refresh")
+    public Map<String, Object> refresh(@RequestBody Map<String, String> refreshData) {
+        Map<String, Object> response = new HashMap<>();
+        TokenResponse tokens = authTokenService.refresh(refreshData.get("refreshToken"));
+        if (tokens != null) {
+            response.put("code", 200);
+            response.put("message", "Token refreshed");
+            response.put("data", tokens);
+        } else {
+            response.put("code", 401);
+            response.put("message", "Invalid or expired refresh token");
+        }
+        return response;
+    }
+
     @PostMapping("/logout")
-    public Map<String, Object> logout() {
-        // For stateless JWT, logout is handled client-side by removing the token
-        // Server-side logout could implement token blacklisting if needed
+    public Map<String, Object> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                      @RequestBody(required = false) Map<String, String> logoutData) {
+        // Revoke the access token (until it expires) and the refresh token family
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        String refreshToken = logoutData != null ? logoutData.get("refreshToken") : null;
+        authTokenService.logout(accessToken, refreshToken);
+
         Map<String, Object> response = new HashMap<>();
         response.put("code", 200);
         response.put("message", "Logout successful");
@@ -232,7 +266,7 @@ public class UserController {
 
         User user = userService.loginBySms(phoneNumber);
         if (user != null) {
-            String token = jwtUtil.generateToken(user.getUserId(), user.getRole());
+            TokenResponse tokens = authTokenService.issueTokens(user);
 
             LoginResponse loginResponse = LoginResponse.builder()
                     .userId(user.getUserId())
@@ -246,7 +280,9 @@ public class UserController {
                     .college(user.getCollege())
                     .major(user.getMajor())
                     .className(user.getClassName())
-                    .token(token)
+                    .token(tokens.getToken())
+                    .refreshToken(tokens.getRefreshToken())
+                    .expiresIn(tokens.getExpiresIn())
                     .build();
 
             response.put("code", 200);
@@ -266,8 +302,8 @@ public class UserController {
         String code = resetData.get("code");
         String newPassword = resetData.get("newPassword");
 
-        // Verify SMS code
-        if (code == null || !smsService.verifyCode(phoneNumber, code, "RESET_PASSWORD")) {
+        // Check SMS code first, but only use it up after hashing (see register)
+        if (!smsService.checkCode(phoneNumber, code, "RESET_PASSWORD")) {
             response.put("code", 400);
             response.put("message", "验证码无效或已过期");
             return response;
@@ -279,7 +315,14 @@ public class UserController {
             return response;
         }
 
-        boolean success = userService.resetPasswordByPhone(phoneNumber, newPassword);
+        String encodedPassword = userService.encodePassword(newPassword);
+        if (!smsService.verifyCode(phoneNumber, code, "RESET_PASSWORD")) {
+            response.put("code", 400);
+            response.put("message", "验证码无效或已过期");
+            return response;
+        }
+
+        boolean success = userService.resetPasswordByPhoneWithEncodedPassword(phoneNumber, encodedPassword);
         if (success) {
             response.put("code", 200);
             response.put("message", "密码重置成功");
@@ -289,4 +332,17 @@ public class UserController {
         }
         return response;
     }
+
+    /**
+     * 密码哈希线程池繁忙（登录高峰）时快速返回 503，客户端按 Retry-After 重试
+     */
+    @ExceptionHandler(PasswordHashRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handlePasswordHashRejected(PasswordHashRejectedException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 503);
+        response.put("message", "服务器繁忙，请稍后重试");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
 }
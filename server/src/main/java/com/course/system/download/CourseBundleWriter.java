@@ -0,0 +1,143 @@
+package com.course.system.download;
+
+import com.course.system.entity.CourseResource;
+import com.course.system.storage.ColdStorage;
+import com.course.system.storage.ResourceStorage;
+import com.course.system.storage.ResourceStorageFactory;
+import com.course.system.storage.StorageKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 课程资源打包下载
+ *
+ * 将课程的所有资源边读边写成 ZIP 直接输出到响应流，不生成临时文件，也不在内存中缓冲整个压缩包。
+ * 视频、图片、压缩包、Office 文档等本身已压缩的格式不再压缩，只做存储，节省 CPU。
+ */
+@Component
+public class CourseBundleWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseBundleWriter.class);
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Autowired
+    private ColdStorage coldStorage;
+
+    /**
+     * 本身已压缩、再次压缩基本没有收益的扩展名
+     */
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "rar", "7z", "gz", "tgz", "bz2", "xz",
+            "jpg", "jpeg", "png", "gif", "webp",
+            "mp3", "aac", "m4a", "ogg", "flac",
+            "mp4", "m4v", "mkv", "mov", "avi", "webm", "flv",
+            "docx", "xlsx", "pptx", "jar", "apk");
+
+    /**
+     * 将资源写成 ZIP 输出到指定流，文件缺失的资源会被跳过
+     *
+     * @return 完整写入压缩包的资源ID；写出中途失败时抛出 IOException，不返回部分结果
+     */
+    public List<String> write(List<CourseResource> resources, OutputStream out) throws IOException {
+        List<String> written = new ArrayList<>(resources.size());
+        Set<String> usedNames = new HashSet<>();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        ResourceStorage storage = storageFactory.getStorage();
+        for (CourseResource resource : resources) {
+            String key = StorageKeys.resourceKey(resource);
+            // 文件不在存储中时尝试从冷存储还原
+            InputStream opened = open(storage, key);
+            InputStream in = opened == null && coldStorage.restore(key) ? open(storage, key) : opened;
+            if (in == null) {
+                logger.warn("Skipping missing file for resource {} in bundle", resource.getResourceId());
+                continue;
+            }
+
+            try (in) {
+                // 已压缩格式使用 0 级压缩（仅存储块），其余使用默认压缩级别
+                zip.setLevel(isCompressed(resource) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+
+                ZipEntry entry = new ZipEntry(uniqueName(entryName(resource), usedNames));
+                entry.setTime(resource.getUploadTime() != null
+                        ? resource.getUploadTime().getTime() : System.currentTimeMillis());
+                zip.putNextEntry(entry);
+                in.transferTo(zip);
+                zip.closeEntry();
+                written.add(resource.getResourceId());
+            }
+        }
+        zip.finish();
+        zip.flush();
+        return written;
+    }
+
+    private boolean isCompressed(CourseResource resource) {
+        String type = resource.getFileType();
+        if (type != null && (type.startsWith("video/") || type.startsWith("audio/"))) {
+            return true;
+        }
+        return COMPRESSED_EXTENSIONS.contains(extension(entryName(resource)));
+    }
+
+    /**
+     * ZIP 内的文件名：优先使用原始文件名，并去掉路径分隔符
+     */
+    private String entryName(CourseResource resource) {
+        String name = resource.getOriginalFileName();
+        if (name == null || name.isBlank()) {
+            name = resource.getResourceName() != null ? resource.getResourceName() : resource.getResourceId();
+        }
+        return name.replace('/', '_').replace('\\', '_');
+    }
+
+    /**
+     * 同名文件追加序号: a.pdf, a (2).pdf, a (3).pdf ...
+     */
+    private String uniqueName(String name, Set<String> usedNames) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + ext;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 打开存储中的文件，不存在时返回 null
+     */
+    private InputStream open(ResourceStorage storage, String key) throws IOException {
+        try {
+            return storage.openStream(key, 0, storage.size(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.course.system.download;
+
+import com.course.system.entity.CourseResource;
+import com.course.system.storage.StorageKeys;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 待发送的文件描述：存储位置、响应头信息与缓存校验信息
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DownloadTarget {
+
+    /**
+     * 资源ID
+     */
+    private String resourceId;
+
+    /**
+     * 存储键
+     */
+    private String storageKey;
+
+    /**
+     * MIME 类型
+     */
+    private String contentType;
+
+    /**
+     * 下载时显示的文件名
+     */
+    private String fileName;
+
+    /**
+     * 是否在浏览器中直接显示 (Content-Disposition: inline)，默认作为附件下载
+     */
+    private boolean inline;
+
+    /**
+     * 强校验 ETag（不含引号），为空时不做 ETag 校验
+     */
+    private String etag;
+
+    /**
+     * 最后修改时间 (毫秒时间戳)，未知时为 -1
+     */
+    @Builder.Default
+    private long lastModified = -1;
+
+    /**
+     * 根据资源记录构建下载描述
+     * 资源文件上传后不再修改，ETag 优先使用内容摘要，旧数据使用“大小-上传时间”
+     */
+    public static DownloadTarget of(CourseResource resource) {
+        long uploadTime = resource.getUploadTime() != null ? resource.getUploadTime().getTime() : -1;
+        String etag = resource.getContentHash();
+        if (etag == null && resource.getFileSize() != null && uploadTime >= 0) {
+            etag = resource.getFileSize() + "-" + uploadTime;
+        }
+        return DownloadTarget.builder()
+                .resourceId(resource.getResourceId())
+                .storageKey(StorageKeys.resourceKey(resource))
+                .contentType(resource.getFileType())
+                .fileName(resource.getOriginalFileName())
+                .etag(etag)
+                .lastModified(uploadTime)
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.course.system.download;
+
+import com.course.system.storage.ResourceStorage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * 热点小文件缓存
+ *
+ * 将频繁下载的小文件（课程大纲、作业 PDF 等）整体保存在堆外直接内存中，命中时不再读取磁盘或对象存储。
+ * 缓存总量按字节计算，淘汰策略为 Caffeine 的 W-TinyLFU（近期与访问频率结合）；
+ * 文件在一段时间内被第二次请求时才载入缓存，只下载一次的文件不会挤占空间。
+ *
+ * 缓存按存储键索引。内容寻址的文件不会被修改，资源删除时由 CourseResourceServiceImpl 失效对应条目。
+ * 被淘汰的缓冲区在下次 GC 时释放，请为 -XX:MaxDirectMemorySize 预留 file.hot-cache.capacity 以上的空间。
+ * 命中率等指标通过 /actuator/metrics/cache.gets?tag=cache:file.hot 查看。
+ */
+@Component
+public class HotFileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotFileCache.class);
+
+    static final String CACHE_NAME = "file.hot";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.hot-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.hot-cache.capacity:128MB}")
+    private DataSize capacity;
+
+    @Value("${file.hot-cache.max-file-size:2MB}")
+    private DataSize maxFileSize;
+
+    private Cache<String, ByteBuffer> cache;
+
+    /**
+     * 最近被请求过一次的存储键，第二次请求时才载入缓存
+     */
+    private Cache<String, Boolean> seen;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(capacity.toBytes())
+                .weigher((String key, ByteBuffer buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+        seen = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 获取已缓存的文件内容
+     *
+     * @return 只读缓冲区（调用方可自由移动 position），未缓存时返回 null
+     */
+    public ByteBuffer getIfPresent(String storageKey) {
+        if (!enabled) {
+            return null;
+        }
+        ByteBuffer buffer = cache.getIfPresent(storageKey);
+        return buffer != null ? buffer.duplicate() : null;
+    }
+
+    /**
+     * 记录一次请求；文件足够小且近期已被请求过时载入缓存
+     *
+     * @param local 本地存储时的文件路径，远程存储时为 null
+     * @return 载入后的只读缓冲区；不满足缓存条件或读取失败时返回 null
+     */
+    public ByteBuffer admit(ResourceStorage storage, String storageKey, Path local, long length) {
+        if (!enabled || length <= 0 || length > maxFileSize.toBytes()) {
+            return null;
+        }
+        if (seen.asMap().putIfAbsent(storageKey, Boolean.TRUE) == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = cache.get(storageKey, key -> load(storage, key, local, length));
+            seen.invalidate(storageKey);
+            return buffer.duplicate();
+        } catch (UncheckedIOException e) {
+            logger.warn("Failed to cache file {}", storageKey, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * 使缓存条目失效（文件删除时调用）
+     */
+    public void invalidate(String storageKey) {
+        cache.invalidate(storageKey);
+        seen.invalidate(storageKey);
+    }
+
+    private ByteBuffer load(ResourceStorage storage, String storageKey, Path local, long length) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try {
+            if (local != null) {
+                try (FileChannel channel = FileChannel.open(local, StandardOpenOption.READ)) {
+                    readFully(channel, buffer);
+                }
+            } else {
+                try (InputStream in = storage.openStream(storageKey, 0, length);
+                     ReadableByteChannel channel = Channels.newChannel(in)) {
+                    readFully(channel, buffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new EOFException("File shorter than expected, " + buffer.remaining() + " bytes missing");
+            }
+        }
+    }
+}
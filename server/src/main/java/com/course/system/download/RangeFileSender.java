@@ -0,0 +1,482 @@
+package com.course.system.download;
+
+import com.course.system.bandwidth.BandwidthLimiter;
+import com.course.system.storage.ColdStorage;
+import com.course.system.storage.ResourceStorage;
+import com.course.system.storage.ResourceStorageFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 文件分段下载发送器
+ *
+ * 支持 HTTP Range 请求（单段与多段 206 Partial Content），用于视频拖动播放与断点续传。
+ * 本地存储时，整个文件或单段请求优先使用 Tomcat sendfile（内核零拷贝），
+ * 不支持时回退到 FileChannel.transferTo 写出响应流；
+ * 远程存储（S3）时按区间读取对象并写出。
+ * 频繁下载的小文件由 HotFileCache 缓存在堆外内存中，命中时直接从内存写出；
+ * 已移入冷存储的文件先由 ColdStorage 还原再发送。
+ *
+ * 发送前按 ETag / Last-Modified 处理条件请求（If-None-Match、If-Modified-Since、If-Range），
+ * 客户端缓存仍然有效时只返回 304。
+ *
+ * 配置 file.download.offload 后，本地存储的文件只设置响应头并返回 X-Accel-Redirect (nginx) 或
+ * X-Sendfile (Apache/lighttpd) 内部重定向，由反向代理直接从磁盘发送文件（包括 Range 处理），
+ * 不再占用 Tomcat 工作线程。
+ *
+ * 配置了下载限速 (file.bandwidth.download.*) 时，应用发送的内容经过限速输出流写出，
+ * 此时不使用 sendfile（限速对卸载给反向代理的下载不生效，请在代理上配置 limit_rate）。
+ */
+@Component
+public class RangeFileSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(RangeFileSender.class);
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final String CRLF = "\r\n";
+
+    private static final String OFFLOAD_X_ACCEL = "x-accel-redirect";
+    private static final String OFFLOAD_X_SENDFILE = "x-sendfile";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Autowired
+    private BandwidthLimiter bandwidthLimiter;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private ColdStorage coldStorage;
+
+    /**
+     * 下载卸载模式: none, x-accel-redirect, x-sendfile
+     */
+    @Value("${file.download.offload:none}")
+    private String offloadMode;
+
+    /**
+     * nginx 中映射到上传目录的 internal location 前缀
+     */
+    @Value("${file.download.accel-prefix:/protected-uploads/}")
+    private String accelPrefix;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    /**
+     * 写出文件某个区间的方式（本地零拷贝或远程流式读取）
+     */
+    private interface RangeSource {
+        /**
+         * @param allowSendfile 是否允许交给容器 sendfile（多段响应中必须直接写出）
+         */
+        void transfer(long start, long count, OutputStream out, boolean allowSendfile) throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!"none".equalsIgnoreCase(offloadMode) && !OFFLOAD_X_ACCEL.equalsIgnoreCase(offloadMode)
+                && !OFFLOAD_X_SENDFILE.equalsIgnoreCase(offloadMode)) {
+            throw new IllegalStateException("Unknown download offload mode: " + offloadMode);
+        }
+        if (!"none".equalsIgnoreCase(offloadMode)) {
+            logger.info("File downloads are offloaded to the reverse proxy via {}", offloadMode);
+        }
+    }
+
+    /**
+     * 发送文件，根据条件请求头与 Range 决定返回 304、200 或 206
+     *
+     * @return 对象不存在时返回 false（此时尚未写出任何内容）
+     */
+    public boolean send(HttpServletRequest request, HttpServletResponse response,
+                        DownloadTarget target) throws IOException {
+        ResourceStorage storage = storageFactory.getStorage();
+        String storageKey = target.getStorageKey();
+        Path local = storage.localPath(storageKey);
+        boolean offload = local != null && !"none".equalsIgnoreCase(offloadMode);
+
+        // 热点小文件直接从内存发送，不访问存储
+        ByteBuffer cached = offload ? null : hotFileCache.getIfPresent(storageKey);
+
+        long length;
+        if (cached != null) {
+            length = cached.remaining();
+        } else {
+            length = storedLength(storage, storageKey, local);
+            // 文件不在存储中时尝试从冷存储还原
+            if (length < 0 && coldStorage.restore(storageKey)) {
+                length = storedLength(storage, storageKey, local);
+            }
+            if (length < 0) {
+                return false;
+            }
+        }
+
+        // 客户端缓存仍然有效：返回 304，不发送内容
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(target.getEtag(), target.getLastModified())) {
+            return true;
+        }
+
+        if (offload) {
+            offload(response, local, target);
+            return true;
+        }
+
+        if (cached == null) {
+            cached = hotFileCache.admit(storage, storageKey, local, length);
+        }
+        if (cached != null) {
+            ByteBuffer content = cached;
+            RangeSource source = (start, count, out, allowSendfile) -> {
+                ByteBuffer slice = content.duplicate();
+                slice.position((int) start).limit((int) (start + count));
+                Channels.newChannel(out).write(slice);
+                out.flush();
+            };
+            send(request, response, length, source, target);
+            return true;
+        }
+
+        if (local != null) {
+            try (FileChannel channel = FileChannel.open(local, StandardOpenOption.READ)) {
+                RangeSource source = (start, count, out, allowSendfile) ->
+                        transferLocal(request, local, channel, start, count, out, allowSendfile);
+                send(request, response, channel.size(), source, target);
+            }
+            return true;
+        }
+
+        RangeSource source = (start, count, out, allowSendfile) -> {
+            try (InputStream in = storage.openStream(storageKey, start, count)) {
+                copy(in, out, count);
+            }
+        };
+        send(request, response, length, source, target);
+        return true;
+    }
+
+    /**
+     * 读取存储中文件的大小，不存在时返回 -1
+     */
+    private long storedLength(ResourceStorage storage, String storageKey, Path local) throws IOException {
+        try {
+            if (local != null) {
+                BasicFileAttributes attributes = Files.readAttributes(local, BasicFileAttributes.class);
+                return attributes.isRegularFile() ? attributes.size() : -1;
+            }
+            return storage.size(storageKey);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 判断本次响应是否应计为一次下载：完整返回，或从文件开头开始的分段请求
+     * （拖动、续传与 304 不重复计数）。
+     * 交给反向代理发送时响应状态总是 200，Range 由代理处理，因此按请求的 Range 头判断。
+     */
+    public boolean countsAsDownload(HttpServletRequest request, HttpServletResponse response) {
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            boolean offloaded = response.containsHeader("X-Accel-Redirect") || response.containsHeader("X-Sendfile");
+            return !offloaded || request.getHeader(HttpHeaders.RANGE) == null || rangeStartsAtZero(request);
+        }
+        return response.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT && rangeStartsAtZero(request);
+    }
+
+    private static boolean rangeStartsAtZero(HttpServletRequest request) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            return !ranges.isEmpty() && ranges.get(0).getRangeStart(Long.MAX_VALUE) == 0;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void send(HttpServletRequest request, HttpServletResponse response, long length,
+                      RangeSource source, DownloadTarget target) throws IOException {
+        String contentType = target.getContentType();
+        String mimeType = (contentType != null && !contentType.isEmpty())
+                ? contentType : "application/octet-stream";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(target.getFileName(), target.isInline()));
+
+        // If-Range 与当前版本不一致时忽略 Range，返回完整文件
+        String rangeHeader = ifRangeMatches(request, target) ? request.getHeader(HttpHeaders.RANGE) : null;
+
+        List<long[]> ranges;
+        try {
+            ranges = resolveRanges(rangeHeader, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        // 限速时必须经过限速输出流写出，不能交给 sendfile
+        BandwidthLimiter.Throttle throttle = bandwidthLimiter.throttle(request, BandwidthLimiter.Direction.DOWNLOAD);
+        boolean allowSendfile = throttle == null;
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mimeType);
+            response.setContentLengthLong(length);
+            if (!headOnly && length > 0) {
+                source.transfer(0, length, outputStream(response, throttle), allowSendfile);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setContentType(mimeType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+            response.setContentLengthLong(end - start + 1);
+            if (!headOnly) {
+                source.transfer(start, end - start + 1, outputStream(response, throttle), allowSendfile);
+            }
+            return;
+        }
+
+        sendMultipart(response, outputStream(response, throttle), source, ranges, mimeType, length, headOnly);
+    }
+
+    private OutputStream outputStream(HttpServletResponse response,
+                                      BandwidthLimiter.Throttle throttle) throws IOException {
+        OutputStream out = response.getOutputStream();
+        return throttle != null ? throttle.wrap(out) : out;
+    }
+
+    /**
+     * 校验 If-Range：可以是 ETag 或 HTTP 日期，缺省视为匹配
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, DownloadTarget target) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return target.getEtag() != null && ifRange.equals("\"" + target.getEtag() + "\"");
+        }
+        long date;
+        try {
+            date = request.getDateHeader(HttpHeaders.IF_RANGE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return target.getLastModified() >= 0 && date >= 0 && target.getLastModified() / 1000 <= date / 1000;
+    }
+
+    /**
+     * 交给反向代理发送文件：只写响应头，不写响应体
+     */
+    private void offload(HttpServletResponse response, Path file, DownloadTarget target) throws IOException {
+        String contentType = target.getContentType();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(target.getFileName(), target.isInline()));
+        if (contentType != null && !contentType.isEmpty()) {
+            response.setContentType(contentType);
+        }
+
+        if (OFFLOAD_X_SENDFILE.equalsIgnoreCase(offloadMode)) {
+            response.setHeader("X-Sendfile", file.toAbsolutePath().normalize().toString());
+            return;
+        }
+
+        // X-Accel-Redirect 使用相对于上传目录的 URI，文件必须位于上传目录之内
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path absolute = file.toAbsolutePath().normalize();
+        if (!absolute.startsWith(root)) {
+            logger.error("Cannot offload file outside upload dir: {}", absolute);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        StringBuilder uri = new StringBuilder(accelPrefix.endsWith("/") ? accelPrefix : accelPrefix + "/");
+        for (Path segment : root.relativize(absolute)) {
+            if (uri.charAt(uri.length() - 1) != '/') {
+                uri.append('/');
+            }
+            uri.append(URLEncoder.encode(segment.toString(), StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        response.setHeader("X-Accel-Redirect", uri.toString());
+    }
+
+    /**
+     * 解析 Range 请求头，返回按起点排序、合并了重叠与相邻区间的 [start, end]（闭区间）列表；
+     * 无 Range 时返回空列表。
+     * 各区间长度之和超过文件长度时（如 bytes=0-,0-,0-）同样返回空列表，按完整文件返回 200，
+     * 不会在一次响应中重复发送同一内容。
+     *
+     * @throws IllegalArgumentException Range 格式错误或无法满足
+     */
+    static List<long[]> resolveRanges(String rangeHeader, long length) {
+        List<long[]> result = new ArrayList<>();
+        if (rangeHeader == null || rangeHeader.isEmpty()) {
+            return result;
+        }
+        List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+        long requested = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                continue;
+            }
+            requested += end - start + 1;
+            result.add(new long[]{start, end});
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("No satisfiable range in: " + rangeHeader);
+        }
+        if (requested > length) {
+            return new ArrayList<>();
+        }
+
+        result.sort(Comparator.comparingLong((long[] range) -> range[0]));
+        List<long[]> merged = new ArrayList<>(result.size());
+        long[] current = result.get(0);
+        for (long[] range : result.subList(1, result.size())) {
+            if (range[0] <= current[1] + 1) {
+                current[1] = Math.max(current[1], range[1]);
+            } else {
+                merged.add(current);
+                current = range;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * 多段请求：以 multipart/byteranges 格式依次写出各段
+     */
+    private void sendMultipart(HttpServletResponse response, OutputStream out, RangeSource source,
+                               List<long[]> ranges, String mimeType, long length,
+                               boolean headOnly) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] header = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + mimeType + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range[0], range[1], length) + CRLF
+                    + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + (range[1] - range[0] + 1);
+        }
+        byte[] closing = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headOnly) {
+            return;
+        }
+
+        // 多段响应需要在各段之间穿插分隔头，不能交给 sendfile
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            out.write(partHeaders.get(i));
+            source.transfer(range[0], range[1] - range[0] + 1, out, false);
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    /**
+     * 本地文件的区间写出：容器支持 sendfile 时交给 Tomcat 零拷贝发送，否则使用 transferTo
+     */
+    private void transferLocal(HttpServletRequest request, Path file, FileChannel channel,
+                               long start, long count, OutputStream out, boolean allowSendfile) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        if (allowSendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long sent = channel.transferTo(position, remaining, target);
+            if (sent <= 0) {
+                logger.warn("transferTo made no progress at position {}", position);
+                throw new IOException("Unexpected end of file at position " + position);
+            }
+            position += sent;
+            remaining -= sent;
+        }
+        out.flush();
+    }
+
+    private void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new IOException("Unexpected end of stream, " + remaining + " bytes missing");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        out.flush();
+    }
+
+    private String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+    private String contentDisposition(String fileName, boolean inline) {
+        String encodedFileName = URLEncoder.encode(
+                fileName != null ? fileName : "download", StandardCharsets.UTF_8)
+                .replace("+", "%20");
+        return (inline ? "inline" : "attachment") + "; filename*=UTF-8''" + encodedFileName;
+    }
+}
@@ -0,0 +1,43 @@
+package com.course.system.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 课程群发任务的进度
+ *
+ * 收件人边查询边发送，recipientsResolved 为 false 时 total 仍在增长
+ */
+@Data
+public class BroadcastJob {
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    /**
+     * 部分批次发送失败
+     */
+    public static final String PARTIAL = "PARTIAL";
+    public static final String FAILED = "FAILED";
+
+    private String jobId;
+    private String courseId;
+    private String senderId;
+    private volatile String status = QUEUED;
+    private volatile boolean recipientsResolved;
+    /**
+     * 有效且去重后的收件人数
+     */
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    /**
+     * 没有手机号或手机号无效、重复的学生数
+     */
+    private final AtomicInteger skipped = new AtomicInteger();
+    private volatile String error;
+    private Date createdAt;
+    private volatile Date startedAt;
+    private volatile Date finishedAt;
+}
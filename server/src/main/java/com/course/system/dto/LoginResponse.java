@@ -25,4 +25,6 @@ public class LoginResponse {
     private String major;
     private String className;
     private String token;
+    private String refreshToken;
+    private Long expiresIn;
 }
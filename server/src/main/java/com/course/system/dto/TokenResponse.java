@@ -0,0 +1,22 @@
+package com.course.system.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Access/refresh token pair returned by login and token refresh
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse {
+    private String token;
+    private String refreshToken;
+    /**
+     * Access token lifetime in seconds
+     */
+    private long expiresIn;
+}
@@ -0,0 +1,82 @@
+package com.course.system.entity;
+
+import lombok.Data;
+import java.util.Date;
+
+/**
+ * 分片上传会话
+ * 记录大文件分片上传的元数据，已接收的分片以文件形式保存在临时目录中
+ */
+@Data
+public class ChunkedUpload {
+
+    /**
+     * 上传会话ID (UUID)
+     */
+    private String uploadId;
+
+    /**
+     * 所属课程ID
+     */
+    private String courseId;
+
+    /**
+     * 上传者ID
+     */
+    private String uploaderId;
+
+    /**
+     * 原始文件名
+     */
+    private String originalFileName;
+
+    /**
+     * 文件类型/MIME类型
+     */
+    private String fileType;
+
+    /**
+     * 文件总大小 (字节)
+     */
+    private Long fileSize;
+
+    /**
+     * 分片大小 (字节，最后一片可以更小)
+     */
+    private Integer chunkSize;
+
+    /**
+     * 分片总数
+     */
+    private Integer totalChunks;
+
+    /**
+     * 客户端提供的整个文件 SHA-256 摘要（可选，用于完整性校验）
+     */
+    private String contentHash;
+
+    /**
+     * 资源名称
+     */
+    private String resourceName;
+
+    /**
+     * 资源类型
+     */
+    private String resourceType;
+
+    /**
+     * 资源描述
+     */
+    private String description;
+
+    /**
+     * 状态: UPLOADING, COMPLETING
+     */
+    private String status;
+
+    /**
+     * 创建时间
+     */
+    private Date createdAt;
+}
@@ -50,6 +50,11 @@ public class CourseResource {
      */
     private Long fileSize;
 
+    /**
+     * 文件内容 SHA-256 摘要 (小写十六进制)
+     */
+    private String contentHash;
+
     /**
      * 文件类型/MIME类型
      */
@@ -0,0 +1,26 @@
+package com.course.system.entity;
+
+import lombok.Data;
+import java.util.Date;
+
+/**
+ * 签名节点发布的 JWT 公钥，所有节点据此验证其它签名节点签发的令牌
+ */
+@Data
+public class JwtSigningKey {
+
+    /**
+     * 密钥ID (JWT kid)
+     */
+    private String kid;
+
+    /**
+     * 公钥 (JWK JSON)
+     */
+    private String publicJwk;
+
+    /**
+     * 首次发布时间
+     */
+    private Date createdAt;
+}
@@ -0,0 +1,43 @@
+package com.course.system.entity;
+
+import lombok.Data;
+import java.util.Date;
+
+/**
+ * 刷新令牌
+ * 令牌原文只返回给客户端，数据库中保存其 SHA-256 摘要
+ */
+@Data
+public class RefreshToken {
+
+    /**
+     * 令牌的 SHA-256 摘要 (十六进制)
+     */
+    private String tokenHash;
+
+    /**
+     * 用户ID
+     */
+    private String userId;
+
+    /**
+     * 令牌族ID：同一次登录后轮换出的令牌共享同一个族ID，
+     * 已轮换的令牌被再次使用时整族吊销
+     */
+    private String familyId;
+
+    /**
+     * 状态: ACTIVE, ROTATED, REVOKED
+     */
+    private String status;
+
+    /**
+     * 过期时间
+     */
+    private Date expiresAt;
+
+    /**
+     * 创建时间
+     */
+    private Date createdAt;
+}
@@ -0,0 +1,37 @@
+package com.course.system.entity;
+
+import lombok.Data;
+import java.util.Date;
+
+/**
+ * 资源文件内容块（按内容摘要去重存储）
+ * 多条 course_resources 记录可以引用同一个内容块
+ */
+@Data
+public class ResourceBlob {
+
+    /**
+     * 内容 SHA-256 摘要 (主键)
+     */
+    private String contentHash;
+
+    /**
+     * 存储路径
+     */
+    private String filePath;
+
+    /**
+     * 文件大小 (字节)
+     */
+    private Long fileSize;
+
+    /**
+     * 引用计数（引用该内容的 course_resources 记录数）
+     */
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    private Date createdAt;
+}
@@ -0,0 +1,26 @@
+package com.course.system.entity;
+
+import lombok.Data;
+import java.util.Date;
+
+/**
+ * 已吊销的访问令牌
+ */
+@Data
+public class RevokedToken {
+
+    /**
+     * 访问令牌ID (JWT jti)
+     */
+    private String tokenId;
+
+    /**
+     * 令牌原本的过期时间，之后记录可以删除
+     */
+    private Date expiresAt;
+
+    /**
+     * 吊销时间
+     */
+    private Date revokedAt;
+}
@@ -0,0 +1,36 @@
+package com.course.system.entity;
+
+import lombok.Data;
+import java.util.Date;
+
+/**
+ * 存储用量统计（按课程或上传者累计资源文件的大小与数量）
+ */
+@Data
+public class StorageUsage {
+
+    /**
+     * 统计对象类型: COURSE, UPLOADER
+     */
+    private String ownerType;
+
+    /**
+     * 课程ID或上传者ID
+     */
+    private String ownerId;
+
+    /**
+     * 资源文件总大小 (字节)
+     */
+    private Long totalBytes;
+
+    /**
+     * 资源文件数量
+     */
+    private Integer fileCount;
+
+    /**
+     * 最后更新时间
+     */
+    private Date updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.course.system.mapper;
+
+import com.course.system.entity.ChunkedUpload;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface ChunkedUploadMapper {
+
+    int insert(ChunkedUpload upload);
+
+    ChunkedUpload selectById(@Param("uploadId") String uploadId);
+
+    /**
+     * 仅当当前状态为 expected 时更新状态，用于防止重复合并
+     */
+    int updateStatus(@Param("uploadId") String uploadId,
+                     @Param("expected") String expected,
+                     @Param("status") String status);
+
+    int delete(@Param("uploadId") String uploadId);
+
+    List<ChunkedUpload> selectCreatedBefore(@Param("before") Date before);
+}
@@ -14,6 +14,13 @@ public interface CourseEnrollmentMapper {
     CourseEnrollment selectByStudentAndCourse(@Param("studentId") String studentId, @Param("courseId") String courseId);
     List<Course> selectCoursesByStudent(String studentId);
     List<User> selectStudentsByCourse(String courseId);
+
+    /**
+     * 按手机号升序分页读取课程学生的手机号（去重），返回大于 afterPhone 的最多 limit 个
+     */
+    List<String> selectStudentPhonesPage(@Param("courseId") String courseId,
+                                         @Param("afterPhone") String afterPhone,
+                                         @Param("limit") int limit);
     int countByStudent(String studentId);
     int countByCourse(String courseId);
 }
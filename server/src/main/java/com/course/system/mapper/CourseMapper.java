@@ -2,6 +2,8 @@ package com.course.system.mapper;
 
 import com.course.system.entity.Course;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -12,4 +14,9 @@ public interface CourseMapper {
     List<Course> selectByTeacherId(String teacherId);
     int update(Course course);
     int delete(String courseId);
+
+    /**
+     * 返回给定ID中存在的课程ID
+     */
+    List<String> selectExistingIds(@Param("courseIds") Collection<String> courseIds);
 }
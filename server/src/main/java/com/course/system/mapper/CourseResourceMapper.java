@@ -3,8 +3,10 @@ package com.course.system.mapper;
 import com.course.system.entity.CourseResource;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface CourseResourceMapper {
@@ -23,5 +25,26 @@ public interface CourseResourceMapper {
 
     int incrementDownloadCount(@Param("resourceId") String resourceId);
 
+    /**
+     * 批量累加下载次数 (resourceId -> 增量)
+     */
+    int addDownloadCounts(@Param("deltas") Map<String, Long> deltas);
+
     int updateVisibility(@Param("resourceId") String resourceId, @Param("visible") Boolean visible);
+
+    /**
+     * 逐行读取课程下所有资源的存储文件名（流式游标，不一次性加载到内存）
+     */
+    void streamStoredFileNames(@Param("courseId") String courseId, ResultHandler<String> handler);
+
+    /**
+     * 按 resource_id 升序分页读取可以移入冷存储的资源：所属课程已结课，且内容块没有被未结课课程引用
+     */
+    List<CourseResource> selectColdCandidatesPage(@Param("afterResourceId") String afterResourceId,
+                                                  @Param("limit") int limit);
+
+    /**
+     * 统计引用该内容块的未结课课程资源数
+     */
+    int countActiveBlobReferences(@Param("contentHash") String contentHash);
 }
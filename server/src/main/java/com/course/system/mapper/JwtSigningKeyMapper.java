@@ -0,0 +1,23 @@
+package com.course.system.mapper;
+
+import com.course.system.entity.JwtSigningKey;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface JwtSigningKeyMapper {
+
+    int insert(JwtSigningKey key);
+
+    /**
+     * 查询 since 之后发布的公钥（更早的密钥已超过保留期，不再用于验证）
+     */
+    List<JwtSigningKey> selectSince(@Param("since") Date since);
+
+    int deleteByKid(@Param("kid") String kid);
+
+    int deleteBefore(@Param("before") Date before);
+}
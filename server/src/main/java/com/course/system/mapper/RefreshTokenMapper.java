@@ -0,0 +1,28 @@
+package com.course.system.mapper;
+
+import com.course.system.entity.RefreshToken;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+
+@Mapper
+public interface RefreshTokenMapper {
+
+    int insert(RefreshToken token);
+
+    RefreshToken selectByHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * 仅当当前状态为 expected 时更新状态，用于保证同一令牌只能轮换一次
+     */
+    int updateStatus(@Param("tokenHash") String tokenHash,
+                     @Param("expected") String expected,
+                     @Param("status") String status);
+
+    int revokeFamily(@Param("familyId") String familyId);
+
+    int revokeByUser(@Param("userId") String userId);
+
+    int deleteExpired(@Param("before") Date before);
+}
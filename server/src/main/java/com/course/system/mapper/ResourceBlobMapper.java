@@ -0,0 +1,39 @@
+package com.course.system.mapper;
+
+import com.course.system.entity.ResourceBlob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface ResourceBlobMapper {
+
+    ResourceBlob selectByHash(@Param("contentHash") String contentHash);
+
+    /**
+     * 读取并锁定内容块记录 (SELECT ... FOR UPDATE)，须在事务中调用；
+     * 记录不存在时同样锁定该摘要，阻止其它节点并发插入
+     */
+    ResourceBlob selectByHashForUpdate(@Param("contentHash") String contentHash);
+
+    /**
+     * 插入内容块记录，已存在时引用计数加一
+     */
+    int insertOrIncrement(ResourceBlob blob);
+
+    int incrementRefCount(@Param("contentHash") String contentHash);
+
+    int decrementRefCount(@Param("contentHash") String contentHash);
+
+    /**
+     * 删除引用计数已归零的内容块记录
+     */
+    int deleteIfUnreferenced(@Param("contentHash") String contentHash);
+
+    /**
+     * 返回给定摘要中已有记录的部分
+     */
+    List<String> selectExistingHashes(@Param("hashes") Collection<String> hashes);
+}
@@ -0,0 +1,21 @@
+package com.course.system.mapper;
+
+import com.course.system.entity.RevokedToken;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface RevokedTokenMapper {
+
+    int insert(RevokedToken token);
+
+    /**
+     * 查询在 since 之后吊销且尚未过期的令牌（since 为 null 时查询全部未过期令牌）
+     */
+    List<RevokedToken> selectRevokedSince(@Param("since") Date since, @Param("now") Date now);
+
+    int deleteExpired(@Param("before") Date before);
+}
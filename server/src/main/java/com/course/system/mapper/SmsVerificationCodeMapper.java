@@ -4,6 +4,8 @@ import com.course.system.entity.SmsVerificationCode;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Date;
+
 @Mapper
 public interface SmsVerificationCodeMapper {
     int insert(SmsVerificationCode code);
@@ -14,9 +16,15 @@ public interface SmsVerificationCodeMapper {
     SmsVerificationCode findLatestByPhoneAndType(@Param("phoneNumber") String phoneNumber,
             @Param("type") String type);
 
+    /**
+     * 标记为已使用，仅当记录尚未使用时更新
+     */
     int markAsUsed(@Param("id") Long id);
 
     int deleteById(@Param("id") Long id);
 
-    int deleteExpired();
+    /**
+     * 删除 before 之前过期的记录，每次最多 limit 行
+     */
+    int deleteExpired(@Param("before") Date before, @Param("limit") int limit);
 }
@@ -0,0 +1,19 @@
+package com.course.system.mapper;
+
+import com.course.system.entity.StorageUsage;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface StorageUsageMapper {
+
+    StorageUsage selectByOwner(@Param("ownerType") String ownerType, @Param("ownerId") String ownerId);
+
+    /**
+     * 同时累加课程与上传者的用量（增量可以为负）
+     */
+    int addUsage(@Param("courseId") String courseId,
+                 @Param("uploaderId") String uploaderId,
+                 @Param("bytes") long bytes,
+                 @Param("files") int files);
+}
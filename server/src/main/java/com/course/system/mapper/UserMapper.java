@@ -13,5 +13,7 @@ public interface UserMapper {
     List<User> selectAll();
     int update(User user);
     int updatePassword(@Param("userId") String userId, @Param("password") String password);
+    int updatePasswordIfUnchanged(@Param("userId") String userId, @Param("oldPassword") String oldPassword,
+            @Param("newPassword") String newPassword);
     int delete(String userId);
 }
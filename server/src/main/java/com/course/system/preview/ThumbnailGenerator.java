@@ -0,0 +1,292 @@
+package com.course.system.preview;
+
+import com.course.system.entity.CourseResource;
+import com.course.system.storage.ResourceStorage;
+import com.course.system.storage.ResourceStorageFactory;
+import com.course.system.storage.StorageKeys;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 资源缩略图生成
+ *
+ * 上传成功后提交到后台线程池，渲染 PDF 首页或图片的缩略图 (PNG)，
+ * 保存在源文件旁边 ({源文件存储键}.thumb.png)，相同内容的资源共用一份缩略图。
+ *
+ * 线程池线程数与队列长度都有上限，线程为低优先级守护线程；
+ * 队列已满时直接丢弃任务，缩略图在下次被请求时重新提交生成，不会阻塞或拖慢请求线程。
+ */
+@Component
+public class ThumbnailGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    private static final String PDF_TYPE = "application/pdf";
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${file.thumbnail.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.thumbnail.size:320}")
+    private int size;
+
+    @Value("${file.thumbnail.threads:1}")
+    private int threads;
+
+    @Value("${file.thumbnail.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${file.thumbnail.max-source-size:200MB}")
+    private DataSize maxSourceSize;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 排队或正在生成的缩略图，避免同一文件重复提交
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        // 图片解码时不使用磁盘缓存
+        ImageIO.setUseCache(false);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 资源是否支持生成缩略图
+     */
+    public boolean supports(CourseResource resource) {
+        return enabled && (isPdf(resource) || isImage(resource));
+    }
+
+    /**
+     * 提交缩略图生成任务（立即返回）
+     *
+     * @return 已提交或已在队列中时返回 true；不支持的类型或队列已满时返回 false
+     */
+    public boolean submit(CourseResource resource) {
+        if (!supports(resource)) {
+            return false;
+        }
+        Long fileSize = resource.getFileSize();
+        if (fileSize != null && fileSize > maxSourceSize.toBytes()) {
+            return false;
+        }
+
+        String sourceKey = StorageKeys.resourceKey(resource);
+        if (!inFlight.add(sourceKey)) {
+            return true;
+        }
+        boolean pdf = isPdf(resource);
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(sourceKey, pdf);
+                } finally {
+                    inFlight.remove(sourceKey);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(sourceKey);
+            logger.debug("Thumbnail queue full, skipped {}", sourceKey);
+            return false;
+        }
+    }
+
+    private void generate(String sourceKey, boolean pdf) {
+        ResourceStorage storage = storageFactory.getStorage();
+        String thumbnailKey = StorageKeys.thumbnailKey(sourceKey);
+        Path source = null;
+        Path downloaded = null;
+        Path output = null;
+        try {
+            if (storage.exists(thumbnailKey)) {
+                return;
+            }
+
+            // 远程存储先下载到本地临时文件再渲染
+            source = storage.localPath(sourceKey);
+            if (source == null) {
+                downloaded = createTempFile(".src");
+                try (InputStream in = storage.openStream(sourceKey, 0, storage.size(sourceKey))) {
+                    Files.copy(in, downloaded, StandardCopyOption.REPLACE_EXISTING);
+                }
+                source = downloaded;
+            }
+
+            BufferedImage thumbnail = pdf ? renderPdf(source) : renderImage(source);
+            if (thumbnail == null) {
+                logger.debug("Unsupported image content: {}", sourceKey);
+                return;
+            }
+
+            output = createTempFile(".png");
+            ImageIO.write(thumbnail, "png", output.toFile());
+            storage.put(thumbnailKey, output, "image/png");
+            logger.debug("Generated thumbnail {}", thumbnailKey);
+        } catch (NoSuchFileException e) {
+            logger.debug("Source file removed before thumbnail generation: {}", sourceKey);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to generate thumbnail for {}", sourceKey, e);
+        } finally {
+            deleteQuietly(downloaded);
+            deleteQuietly(output);
+        }
+    }
+
+    /**
+     * 渲染 PDF 首页，按页面宽度缩放到缩略图尺寸
+     */
+    private BufferedImage renderPdf(Path source) throws IOException {
+        try (PDDocument document = Loader.loadPDF(source.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            float longest = Math.max(box.getWidth(), box.getHeight());
+            float scale = longest > 0 ? size / longest : 1f;
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    /**
+     * 解码图片并缩放；大图按比例抽样解码，不在内存中展开原始尺寸的像素
+     */
+    private BufferedImage renderImage(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (size * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private Path createTempFile(String suffix) throws IOException {
+        Path tempDir = Paths.get(uploadDir, "tmp");
+        Files.createDirectories(tempDir);
+        return Files.createTempFile(tempDir, "thumb-", suffix);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temp file: {}", path, e);
+        }
+    }
+
+    private static boolean isPdf(CourseResource resource) {
+        return PDF_TYPE.equalsIgnoreCase(resource.getFileType()) || hasExtension(resource, ".pdf");
+    }
+
+    private static boolean isImage(CourseResource resource) {
+        String type = resource.getFileType();
+        if (type != null && type.toLowerCase(Locale.ROOT).startsWith("image/")) {
+            return !type.toLowerCase(Locale.ROOT).contains("svg");
+        }
+        return hasExtension(resource, ".png") || hasExtension(resource, ".jpg")
+                || hasExtension(resource, ".jpeg") || hasExtension(resource, ".gif")
+                || hasExtension(resource, ".bmp");
+    }
+
+    private static boolean hasExtension(CourseResource resource, String extension) {
+        String name = resource.getOriginalFileName();
+        return name != null && name.toLowerCase(Locale.ROOT).endsWith(extension);
+    }
+}
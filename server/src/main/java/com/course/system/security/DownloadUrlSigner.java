@@ -0,0 +1,183 @@
+package com.course.system.security;
+
+import com.course.system.download.DownloadTarget;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 下载链接签名工具
+ *
+ * 生成短时有效的 HMAC-SHA256 签名下载令牌，令牌中包含资源ID、存储键、文件名、类型、
+ * 缓存校验信息 (ETag / Last-Modified) 与过期时间。
+ * 校验只需一次常量时间的签名比较，不需要解析 JWT，也不需要查询数据库。
+ *
+ * 令牌格式: base64url(payload) + "." + base64url(hmac(payload))
+ *
+ * 签名密钥优先使用 file.download.signing-secret；未设置时用 HKDF-SHA256 从 jwt.secret
+ * 派生专用子密钥 (info = "download-url")，不直接复用 JWT 的 HMAC 密钥。
+ */
+@Component
+public class DownloadUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String SEPARATOR = "\n";
+    private static final String HKDF_INFO = "download-url";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${file.download.signing-secret:}")
+    private String secret;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${file.download.signed-url-ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private SecretKeySpec key;
+
+    /**
+     * Mac 实例不是线程安全的，每个线程复用一个
+     */
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    public void init() {
+        key = secret.isEmpty()
+                ? new SecretKeySpec(hkdf(jwtSecret.getBytes(StandardCharsets.UTF_8), HKDF_INFO), ALGORITHM)
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * 签名令牌中携带的下载信息
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SignedDownload {
+        private String resourceId;
+        private String storageKey;
+        private String fileType;
+        private String fileName;
+        private String etag;
+        private long lastModified;
+        /**
+         * 过期时间 (毫秒时间戳)
+         */
+        private long expiresAt;
+
+        public DownloadTarget toTarget() {
+            return DownloadTarget.builder()
+                    .resourceId(resourceId)
+                    .storageKey(storageKey)
+                    .contentType(fileType)
+                    .fileName(fileName)
+                    .etag(etag)
+                    .lastModified(lastModified)
+                    .build();
+        }
+    }
+
+    /**
+     * 签名令牌的有效期 (秒)
+     */
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * 生成签名令牌
+     */
+    public String sign(DownloadTarget target) {
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        String payload = String.join(SEPARATOR,
+                target.getResourceId(), target.getStorageKey(), nullToEmpty(target.getContentType()),
+                nullToEmpty(target.getFileName()).replace(SEPARATOR, " "), nullToEmpty(target.getEtag()),
+                Long.toString(target.getLastModified()), Long.toString(expiresAt));
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(hmac(payloadBytes));
+    }
+
+    /**
+     * 校验签名令牌
+     *
+     * @return 签名正确且未过期时返回下载信息，否则返回 null
+     */
+    public SignedDownload verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(hmac(payloadBytes), signature)) {
+                return null;
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (fields.length != 7) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(fields[6]);
+            if (expiresAt < System.currentTimeMillis()) {
+                return null;
+            }
+            return new SignedDownload(fields[0], fields[1], emptyToNull(fields[2]), emptyToNull(fields[3]),
+                    emptyToNull(fields[4]), Long.parseLong(fields[5]), expiresAt);
+        } catch (IllegalArgumentException e) {
+            // Base64 或数字格式错误
+            return null;
+        }
+    }
+
+    private byte[] hmac(byte[] data) {
+        return macs.get().doFinal(data);
+    }
+
+    /**
+     * HKDF-SHA256 (RFC 5869)，空 salt，输出一个块 (32 字节)
+     */
+    private static byte[] hkdf(byte[] inputKey, String info) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(new byte[32], ALGORITHM));
+            byte[] prk = mac.doFinal(inputKey);
+            mac.init(new SecretKeySpec(prk, ALGORITHM));
+            mac.update(info.getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal(new byte[]{1});
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive download signing key", e);
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s != null ? s : "";
+    }
+
+    private static String emptyToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+}
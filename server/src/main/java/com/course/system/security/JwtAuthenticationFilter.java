@@ -19,9 +19,19 @@ import java.util.Collections;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * Signed download URLs are verified by DownloadUrlSigner, so JWT parsing is skipped for them
+     */
+    public static final String SIGNED_DOWNLOAD_PREFIX = "/api/files/signed/";
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + SIGNED_DOWNLOAD_PREFIX);
+    }
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -30,25 +40,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String userId = null;
-        String jwt = null;
-        String role = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                userId = jwtUtil.extractUserId(jwt);
-                role = jwtUtil.extractRole(jwt);
-            } catch (Exception e) {
-                // Token is invalid, continue without authentication
-            }
-        }
-
-        if (userId != null && role != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt)) {
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // 一次验签并提取用户ID与角色，无效或过期的令牌返回 null，继续以未认证身份处理
+            JwtPrincipal principal = jwtUtil.verify(authorizationHeader.substring(7));
+            if (principal != null) {
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + principal.getRole().toUpperCase());
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userId, null, Collections.singletonList(authority));
+                        principal.getUserId(), null, Collections.singletonList(authority));
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
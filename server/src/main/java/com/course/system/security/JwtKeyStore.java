@@ -0,0 +1,450 @@
+package com.course.system.security;
+
+import com.course.system.entity.JwtSigningKey;
+import com.course.system.mapper.JwtSigningKeyMapper;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * JWT 签名密钥管理
+ *
+ * jwt.algorithm 为 ES256 或 EdDSA 时使用非对称密钥：签名节点在 jwt.keys.dir 中保存私钥 ({kid}.jwk)，
+ * 按 jwt.keys.rotation-interval 定期生成新密钥，并把最近 jwt.keys.retained 个密钥的公钥写入 jwks.json。
+ * 令牌头部带有 kid，验证时按 kid 查找公钥，轮换后旧密钥签发的令牌在过期前仍然有效。
+ *
+ * 签名节点同时把公钥发布到 jwt_signing_keys 表，所有节点把表中仍在保留期内的公钥并入验证密钥，
+ * 因此多个签名节点各自使用本地密钥目录时，也能验证彼此签发的令牌。
+ * 只负责验证的 API 节点设置 jwt.keys.signing-enabled=false，无需任何签名材料，
+ * 从该表（以及可选的公钥集文件 jwt.keys.public-set）读取公钥。其它节点新生成的密钥由定时刷新加载，
+ * 验证请求遇到未知 kid 时直接拒绝，不在请求线程上访问数据库或磁盘。
+ *
+ * jwt.algorithm=HS512 时沿用 jwt.secret 共享密钥。切换到非对称模式后，默认在一个旧访问令牌有效期内
+ * (jwt.keys.legacy-hmac-window，从启动时算起) 继续接受升级前签发的不带 kid 的 HMAC 令牌，避免已登录用户
+ * 全部被迫重新登录；也可用 jwt.keys.legacy-hmac-until 指定固定的截止时间。过渡期结束后应设置
+ * jwt.keys.accept-legacy-hmac=false，之后共享密钥不再能用于伪造令牌。
+ */
+@Component
+public class JwtKeyStore extends LocatorAdapter<Key> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    static final String ALGORITHM_HMAC = "HS512";
+    static final String ALGORITHM_ES256 = "ES256";
+    static final String ALGORITHM_EDDSA = "EdDSA";
+
+    private static final String PRIVATE_KEY_SUFFIX = ".jwk";
+    private static final String PUBLIC_SET_FILE = "jwks.json";
+
+    @Value("${jwt.secret:CourseManagementSystemSecretKeyForJWTTokenGeneration2026}")
+    private String secret;
+
+    @Value("${jwt.algorithm:ES256}")
+    private String algorithm;
+
+    @Value("${jwt.keys.dir:./keys}")
+    private String keysDir;
+
+    @Value("${jwt.keys.public-set:}")
+    private String publicSet;
+
+    @Value("${jwt.keys.signing-enabled:true}")
+    private boolean signingEnabled;
+
+    @Value("${jwt.keys.rotation-interval:7d}")
+    private Duration rotationInterval;
+
+    @Value("${jwt.keys.retained:3}")
+    private int retained;
+
+    @Value("${jwt.keys.accept-legacy-hmac:true}")
+    private boolean acceptLegacyHmac;
+
+    /**
+     * 接受旧 HMAC 令牌的截止时间 (ISO-8601，如 2026-11-01T00:00:00Z)；为空时为启动时间加 legacy-hmac-window
+     */
+    @Value("${jwt.keys.legacy-hmac-until:}")
+    private String legacyHmacUntil;
+
+    /**
+     * 未指定截止时间时的过渡期，默认取升级前访问令牌的有效期 (24 小时)
+     */
+    @Value("${jwt.keys.legacy-hmac-window:24h}")
+    private Duration legacyHmacWindow;
+
+    @Autowired
+    private JwtSigningKeyMapper signingKeyMapper;
+
+    private long legacyHmacDeadline;
+
+    private SecretKey legacyKey;
+
+    private SignatureAlgorithm signatureAlgorithm;
+
+    private Path keyDir;
+
+    private Path publicSetPath;
+
+    private volatile KeyRing keyRing = KeyRing.EMPTY;
+
+    @PostConstruct
+    public void init() throws IOException {
+        legacyKey = buildLegacyKey();
+        if (isHmac()) {
+            logger.info("JWT tokens are signed with the shared HMAC secret");
+            return;
+        }
+        signatureAlgorithm = switch (algorithm) {
+            case ALGORITHM_ES256 -> Jwts.SIG.ES256;
+            case ALGORITHM_EDDSA -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalStateException("Unsupported jwt.algorithm: " + algorithm);
+        };
+        if (acceptLegacyHmac) {
+            legacyHmacDeadline = legacyHmacUntil.isEmpty()
+                    ? System.currentTimeMillis() + legacyHmacWindow.toMillis()
+                    : Instant.parse(legacyHmacUntil).toEpochMilli();
+            logger.warn("Legacy HMAC tokens without a key id are accepted until {}; "
+                    + "set jwt.keys.accept-legacy-hmac=false once they have expired",
+                    Instant.ofEpochMilli(legacyHmacDeadline));
+        }
+        keyDir = Paths.get(keysDir);
+        publicSetPath = publicSet.isEmpty() ? keyDir.resolve(PUBLIC_SET_FILE) : Paths.get(publicSet);
+
+        if (signingEnabled) {
+            Files.createDirectories(keyDir);
+            loadPrivateKeys();
+            rotateIfDue();
+        } else {
+            loadPublicSet();
+        }
+        logger.info("JWT {} keys loaded: signing kid={}, verification kids={}",
+                algorithm, keyRing.signingKid, keyRing.publicKeys.keySet());
+    }
+
+    /**
+     * 为令牌设置 kid 并签名
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (isHmac()) {
+            return builder.signWith(legacyKey, Jwts.SIG.HS512);
+        }
+        KeyRing ring = keyRing;
+        if (ring.signingKey == null) {
+            throw new IllegalStateException("This node has no JWT signing key (jwt.keys.signing-enabled=false)");
+        }
+        return builder.header().keyId(ring.signingKid).and()
+                .signWith(ring.signingKey, signatureAlgorithm);
+    }
+
+    /**
+     * 当前公钥集 (JWKS)，供其它节点获取
+     */
+    public String publicKeySetJson() {
+        return keyRing.publicSetJson;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (isHmac()) {
+            return legacyKey;
+        }
+        if (kid == null) {
+            if (acceptLegacyHmac && System.currentTimeMillis() < legacyHmacDeadline) {
+                return legacyKey;
+            }
+            throw new UnsupportedJwtException("Token has no key id");
+        }
+        // 其它签名节点刚生成的密钥在下一次定时刷新 (jwt.keys.check-interval-ms) 后才能验证
+        PublicKey key = keyRing.publicKeys.get(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * 定时检查：签名节点按需轮换密钥，所有节点重新加载本地密钥与其它签名节点发布的公钥
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.check-interval-ms:60000}")
+    public void refresh() {
+        if (isHmac()) {
+            return;
+        }
+        try {
+            reload();
+            if (signingEnabled) {
+                rotateIfDue();
+                signingKeyMapper.deleteBefore(new Date(retentionCutoff()));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to refresh JWT keys", e);
+        }
+    }
+
+    private boolean isHmac() {
+        return ALGORITHM_HMAC.equals(algorithm);
+    }
+
+    private synchronized void reload() {
+        try {
+            if (signingEnabled) {
+                loadPrivateKeys();
+            } else {
+                loadPublicSet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 当前签名密钥不存在或已超过轮换周期时生成新密钥，并删除超出保留数量的旧密钥
+     */
+    private synchronized void rotateIfDue() throws IOException {
+        KeyRing ring = keyRing;
+        if (ring.signingKey != null
+                && System.currentTimeMillis() - ring.signingKeyCreated < rotationInterval.toMillis()) {
+            return;
+        }
+
+        String kid = UUID.randomUUID().toString();
+        KeyPair keyPair = ALGORITHM_EDDSA.equals(algorithm)
+                ? Jwks.CRV.Ed25519.keyPair().build()
+                : Jwts.SIG.ES256.keyPair().build();
+        PrivateJwk<?, ?, ?> jwk = Jwks.builder().keyPair(keyPair).id(kid).build();
+        Path file = keyDir.resolve(kid + PRIVATE_KEY_SUFFIX);
+        writeAtomically(file, Jwks.UNSAFE_JSON(jwk), true);
+        logger.info("Generated new JWT signing key {}", kid);
+
+        List<Path> files = privateKeyFiles();
+        for (Path old : files.subList(Math.min(retained, files.size()), files.size())) {
+            Files.deleteIfExists(old);
+            String oldKid = old.getFileName().toString();
+            signingKeyMapper.deleteByKid(oldKid.substring(0, oldKid.length() - PRIVATE_KEY_SUFFIX.length()));
+            logger.info("Retired JWT signing key {}", old.getFileName());
+        }
+        loadPrivateKeys();
+    }
+
+    /**
+     * 加载密钥目录中的私钥，最新的一个用于签名；发布本节点的公钥，合并其它签名节点的公钥并更新 jwks.json
+     */
+    private void loadPrivateKeys() throws IOException {
+        List<Path> files = privateKeyFiles();
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        Map<String, String> publicJwks = new LinkedHashMap<>();
+        String signingKid = null;
+        PrivateKey signingKey = null;
+        long signingKeyCreated = 0;
+
+        for (Path file : files.subList(0, Math.min(retained, files.size()))) {
+            PrivateJwk<?, ?, ?> jwk = (PrivateJwk<?, ?, ?>) Jwks.parser().build()
+                    .parse(Files.readString(file, StandardCharsets.UTF_8));
+            publicKeys.put(jwk.getId(), jwk.toPublicJwk().toKey());
+            publicJwks.put(jwk.getId(), Jwks.json(jwk.toPublicJwk()));
+            if (signingKey == null) {
+                signingKid = jwk.getId();
+                signingKey = jwk.toKey();
+                signingKeyCreated = Files.getLastModifiedTime(file).toMillis();
+            }
+        }
+        publish(publicJwks);
+        mergePublishedKeys(publicKeys, publicJwks);
+
+        String json = "{\"keys\":[" + String.join(",", publicJwks.values()) + "]}";
+        if (!json.equals(keyRing.publicSetJson) && !publicKeys.isEmpty()) {
+            writeAtomically(publicSetPath, json, false);
+        }
+        keyRing = new KeyRing(signingKid, signingKey, signingKeyCreated, publicKeys, json);
+    }
+
+    /**
+     * 加载公钥（仅验证节点）：数据库中各签名节点发布的公钥，以及可选的公钥集文件
+     */
+    private void loadPublicSet() throws IOException {
+        Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+        Map<String, String> publicJwks = new LinkedHashMap<>();
+        if (Files.exists(publicSetPath)) {
+            JwkSet set = Jwks.setParser().build().parse(Files.readString(publicSetPath, StandardCharsets.UTF_8));
+            for (Jwk<?> jwk : set) {
+                if (jwk.getId() != null && jwk instanceof PublicJwk<?> publicJwk) {
+                    publicKeys.put(jwk.getId(), publicJwk.toKey());
+                    publicJwks.put(jwk.getId(), Jwks.json(publicJwk));
+                }
+            }
+        }
+        mergePublishedKeys(publicKeys, publicJwks);
+        if (publicKeys.isEmpty()) {
+            logger.warn("No JWT public keys found yet, tokens cannot be verified");
+        } else if (!publicKeys.keySet().equals(keyRing.publicKeys.keySet())) {
+            logger.info("Loaded JWT public keys {}", publicKeys.keySet());
+        }
+        String json = "{\"keys\":[" + String.join(",", publicJwks.values()) + "]}";
+        keyRing = new KeyRing(null, null, 0, publicKeys, json);
+    }
+
+    /**
+     * 把本节点的公钥发布到数据库（已存在时忽略）
+     */
+    private void publish(Map<String, String> publicJwks) {
+        try {
+            for (Map.Entry<String, String> entry : publicJwks.entrySet()) {
+                JwtSigningKey key = new JwtSigningKey();
+                key.setKid(entry.getKey());
+                key.setPublicJwk(entry.getValue());
+                signingKeyMapper.insert(key);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish JWT public keys, other nodes cannot verify tokens signed here yet", e);
+        }
+    }
+
+    /**
+     * 合并其它签名节点发布的、仍在保留期内的公钥
+     */
+    private void mergePublishedKeys(Map<String, PublicKey> publicKeys, Map<String, String> publicJwks) {
+        List<JwtSigningKey> published;
+        try {
+            published = signingKeyMapper.selectSince(new Date(retentionCutoff()));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load published JWT public keys", e);
+            return;
+        }
+        for (JwtSigningKey row : published) {
+            if (publicKeys.containsKey(row.getKid())) {
+                continue;
+            }
+            try {
+                Jwk<?> jwk = Jwks.parser().build().parse(row.getPublicJwk());
+                if (jwk.toKey() instanceof PublicKey key) {
+                    publicKeys.put(row.getKid(), key);
+                    publicJwks.put(row.getKid(), row.getPublicJwk());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring invalid published JWT key {}", row.getKid(), e);
+            }
+        }
+    }
+
+    /**
+     * 早于该时间生成的密钥已超过保留期（保留数量 x 轮换周期）
+     */
+    private long retentionCutoff() {
+        return System.currentTimeMillis() - retained * rotationInterval.toMillis();
+    }
+
+    /**
+     * 密钥目录中的私钥文件，按修改时间从新到旧排列
+     */
+    private List<Path> privateKeyFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(keyDir, "*" + PRIVATE_KEY_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Map<Path, Long> modified = new LinkedHashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        return files.stream()
+                .sorted(Comparator.comparing(modified::get, Collections.reverseOrder()))
+                .collect(Collectors.toList());
+    }
+
+    private void writeAtomically(Path target, String content, boolean secret) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), ".key-", ".tmp");
+        try {
+            if (secret) {
+                try {
+                    Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+                } catch (UnsupportedOperationException e) {
+                    // 非 POSIX 文件系统，依赖目录权限
+                }
+            }
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private SecretKey buildLegacyKey() {
+        // Ensure the secret is at least 512 bits (64 bytes): keys for existing secrets of 64+ chars are unchanged
+        StringBuilder paddedSecret = new StringBuilder(secret);
+        while (paddedSecret.length() < 64) {
+            paddedSecret.append(secret);
+        }
+        byte[] keyBytes = paddedSecret.substring(0, 64).getBytes(StandardCharsets.UTF_8);
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    /**
+     * 某一时刻的密钥快照，整体替换以保证并发读取的一致性
+     */
+    private static final class KeyRing {
+
+        static final KeyRing EMPTY = new KeyRing(null, null, 0, Collections.emptyMap(), "{\"keys\":[]}");
+
+        final String signingKid;
+        final PrivateKey signingKey;
+        final long signingKeyCreated;
+        final Map<String, PublicKey> publicKeys;
+        final String publicSetJson;
+
+        KeyRing(String signingKid, PrivateKey signingKey, long signingKeyCreated,
+                Map<String, PublicKey> publicKeys, String publicSetJson) {
+            this.signingKid = signingKid;
+            this.signingKey = signingKey;
+            this.signingKeyCreated = signingKeyCreated;
+            this.publicKeys = publicKeys;
+            this.publicSetJson = publicSetJson;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.course.system.security;
+
+import lombok.Value;
+
+/**
+ * 已验证令牌中的身份信息（不可变）
+ */
+@Value
+public class JwtPrincipal {
+
+    /**
+     * 令牌ID (jti)，用于吊销；旧版本签发的令牌没有该字段
+     */
+    String tokenId;
+
+    /**
+     * 用户ID (sub)
+     */
+    String userId;
+
+    /**
+     * 角色
+     */
+    String role;
+
+    /**
+     * 过期时间 (毫秒时间戳)
+     */
+    long expiresAt;
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
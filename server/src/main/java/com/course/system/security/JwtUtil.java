@@ -1,33 +1,104 @@
 package com.course.system.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
-
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 工具
+ *
+ * JwtParser 在启动时构建一次（线程安全），签名与验证密钥由 JwtKeyStore 管理。
+ * 请求认证使用 verify：一次解析同时完成验签、过期检查与字段提取，返回不可变的 JwtPrincipal。
+ * 验证通过的令牌按 SHA-256 摘要缓存（不保存令牌原文），缓存时间不超过令牌本身的有效期，
+ * 同一令牌的后续请求不再重复 HMAC 验签与 JSON 解析。
+ *
+ * 访问令牌带有唯一的 jti，登出时写入 TokenRevocationList；吊销检查在缓存命中后同样执行，只是一次内存查找。
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:CourseManagementSystemSecretKeyForJWTTokenGeneration2026}")
-    private String secret;
+    static final String CACHE_NAME = "jwt.verified";
 
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
+    @Value("${jwt.expiration:900000}") // 15 minutes in milliseconds, renewed with refresh tokens
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        // Ensure the secret is at least 256 bits (32 bytes) for HS256
-        String paddedSecret = secret;
-        while (paddedSecret.length() < 32) {
-            paddedSecret = paddedSecret + secret;
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Autowired
+    private JwtKeyStore keyStore;
+
+    private JwtParser parser;
+
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    /**
+     * MessageDigest 实例不是线程安全的，每个线程复用一个
+     */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        byte[] keyBytes = paddedSecret.substring(0, 64).getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    });
+
+    @PostConstruct
+    public void init() {
+        // 按令牌头部的 kid 选择验证公钥
+        parser = Jwts.parser()
+                .keyLocator(keyStore)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(principal.getExpiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExpiry, TimeUnit.SECONDS.toNanos(cacheTtlSeconds)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtPrincipal principal, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, CACHE_NAME);
     }
 
     public String generateToken(String userId, String role) {
@@ -37,55 +108,72 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
+        return keyStore.sign(Jwts.builder())
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
                 .compact();
     }
 
-    public String extractUserId(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    /**
+     * 验证令牌并提取身份信息（请求认证使用）
+     *
+     * @return 签名正确、未过期、未吊销且包含用户ID与角色时返回身份信息，否则返回 null
+     */
+    public JwtPrincipal verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String digest = digest(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached.isExpired(now) || revocationList.isRevoked(cached.getTokenId()) ? null : cached;
+        }
 
-    public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
-    }
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        String userId = claims.getSubject();
+        String role = claims.get("role", String.class);
+        Date expiresAt = claims.getExpiration();
+        if (userId == null || role == null || expiresAt == null) {
+            return null;
+        }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        JwtPrincipal principal = new JwtPrincipal(claims.getId(), userId, role, expiresAt.getTime());
+        verifiedTokens.put(digest, principal);
+        return revocationList.isRevoked(principal.getTokenId()) ? null : principal;
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * 访问令牌有效期 (毫秒)
+     */
+    public long getExpiration() {
+        return expiration;
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        // 过期的令牌由 parser 直接抛出 ExpiredJwtException
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean validateToken(String token, String userId) {
-        final String extractedUserId = extractUserId(token);
-        return (extractedUserId.equals(userId) && !isTokenExpired(token));
+        JwtPrincipal principal = verify(token);
+        return principal != null && principal.getUserId().equals(userId);
     }
 
     public Boolean validateToken(String token) {
-        try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token) != null;
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
     }
 }
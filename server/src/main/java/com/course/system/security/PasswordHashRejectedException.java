@@ -0,0 +1,18 @@
+package com.course.system.security;
+
+/**
+ * 密码哈希线程池已满或等待超时，请求应以 503 拒绝并提示客户端稍后重试
+ */
+public class PasswordHashRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
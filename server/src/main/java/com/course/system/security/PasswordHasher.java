@@ -0,0 +1,195 @@
+package com.course.system.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希执行器
+ *
+ * BCrypt 是刻意设计的 CPU 密集运算（cost 10 约 50-100ms）。整班同时登录时若直接在 Tomcat 线程上计算，
+ * 所有工作线程都会被哈希占满，连普通的 GET 请求也会超时。
+ * 这里将哈希放到固定大小的线程池中（默认与 CPU 核数相同），排队数量有上限：
+ * 队列已满或等待超时时立即抛出 PasswordHashRejectedException，由控制器返回 503 与 Retry-After。
+ *
+ * 指标：security.password.queue（排队数）、security.password.active（计算中）、
+ * security.password.hash（单次哈希耗时，按 operation 区分）、security.password.rejected（拒绝次数）。
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.password.bcrypt-strength:10}")
+    private int strength;
+
+    @Value("${security.password.hash-threads:0}")
+    private int threads;
+
+    @Value("${security.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.password.wait-timeout:5s}")
+    private Duration waitTimeout;
+
+    @Value("${security.password.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+
+    private Timer matchTimer;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("security.password.queue", executor, e -> e.getQueue().size())
+                .description("Password hashing requests waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("security.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing requests being computed")
+                .register(meterRegistry);
+        encodeTimer = Timer.builder("security.password.hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        matchTimer = Timer.builder("security.password.hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("security.password.rejected")
+                .description("Password hashing requests rejected because the executor was saturated")
+                .register(meterRegistry);
+        logger.info("Password hashing executor started with {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 计算密码哈希
+     *
+     * @throws PasswordHashRejectedException 线程池已满或等待超时
+     */
+    public String encode(String rawPassword) {
+        return call(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * 校验密码
+     *
+     * @throws PasswordHashRejectedException 线程池已满或等待超时
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return call(() -> matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * 已保存的哈希 cost 与当前配置不一致时需要重新计算
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * 在后台以当前 cost 重新计算哈希（登录成功后调用）
+     * 线程池繁忙时直接放弃，下次登录时再尝试，不占用登录请求的排队名额
+     */
+    public void rehashInBackground(String rawPassword, Consumer<String> onEncoded) {
+        if (executor.getQueue().remainingCapacity() <= queueCapacity / 2) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    onEncoded.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to rehash password", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Skipped password rehash, executor is busy");
+        }
+    }
+
+    private <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw reject("Password hashing queue is full");
+        }
+        try {
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private PasswordHashRejectedException reject(String message) {
+        rejectedCounter.increment();
+        return new PasswordHashRejectedException(message, retryAfterSeconds);
+    }
+}
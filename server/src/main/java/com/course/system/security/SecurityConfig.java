@@ -1,6 +1,8 @@
 package com.course.system.security;
 
+import com.course.system.controller.JwksController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,7 +10,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -24,9 +28,15 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    /**
+     * 修改 cost 后，已有用户的哈希在下次登录时由 PasswordHasher 重新计算
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -38,10 +48,16 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints - no authentication required
                         .requestMatchers("/api/users/login", "/api/users/register", "/api/users/login-sms",
-                                "/api/users/reset-password", "/api/sms/send", "/error")
+                                "/api/users/reset-password", "/api/users/refresh", "/api/users/logout",
+                                "/api/sms/send", JwksController.JWKS_PATH, "/error")
+                        .permitAll()
+                        // Signed download URLs carry their own HMAC authorization
+                        .requestMatchers(JwtAuthenticationFilter.SIGNED_DOWNLOAD_PREFIX + "**")
                         .permitAll()
                         // All other requests require authentication
                         .anyRequest().authenticated())
+                // Missing, expired or revoked access tokens get 401 so clients know to refresh
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
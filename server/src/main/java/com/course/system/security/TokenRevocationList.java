@@ -0,0 +1,106 @@
+package com.course.system.security;
+
+import com.course.system.entity.RevokedToken;
+import com.course.system.mapper.RevokedTokenMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 访问令牌吊销列表
+ *
+ * 吊销记录持久化在 revoked_tokens 表中，内存中以 jti → 过期时间 的哈希表保存全部未过期的记录，
+ * 每个请求的吊销检查只是一次哈希查找，不访问数据库。
+ * 访问令牌有效期很短，列表规模只与最近一个有效期内的登出次数有关，过期的记录定期从内存中移除。
+ *
+ * 启动时加载全部未过期记录；多实例部署时各实例定时拉取其它实例新写入的记录。
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    /**
+     * 增量同步时向前多取的时间，避免遗漏提交较晚的记录
+     */
+    private static final long SYNC_OVERLAP_MS = 5000;
+
+    @Autowired
+    private RevokedTokenMapper revokedTokenMapper;
+
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * 已同步记录中最大的吊销时间（数据库时钟）
+     */
+    private volatile long lastRevokedAt;
+
+    @PostConstruct
+    public void init() {
+        load(revokedTokenMapper.selectRevokedSince(null, new Date()));
+        logger.info("Loaded {} revoked access tokens", revoked.size());
+    }
+
+    /**
+     * 令牌是否已被吊销
+     */
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * 吊销访问令牌，直到其原本的过期时间
+     */
+    public void revoke(String tokenId, long expiresAt) {
+        if (tokenId == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        RevokedToken token = new RevokedToken();
+        token.setTokenId(tokenId);
+        token.setExpiresAt(new Date(expiresAt));
+        revokedTokenMapper.insert(token);
+        revoked.put(tokenId, expiresAt);
+    }
+
+    /**
+     * 拉取其它实例写入的吊销记录，并移除已过期的记录
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        try {
+            Date since = lastRevokedAt > 0 ? new Date(lastRevokedAt - SYNC_OVERLAP_MS) : null;
+            load(revokedTokenMapper.selectRevokedSince(since, new Date(now)));
+        } catch (RuntimeException e) {
+            logger.error("Failed to sync revoked tokens", e);
+        }
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    /**
+     * 删除数据库中已过期的记录
+     */
+    public int purgeExpired() {
+        return revokedTokenMapper.deleteExpired(new Date());
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    private void load(List<RevokedToken> tokens) {
+        for (RevokedToken token : tokens) {
+            revoked.put(token.getTokenId(), token.getExpiresAt().getTime());
+            if (token.getRevokedAt() != null && token.getRevokedAt().getTime() > lastRevokedAt) {
+                lastRevokedAt = token.getRevokedAt().getTime();
+            }
+        }
+    }
+}
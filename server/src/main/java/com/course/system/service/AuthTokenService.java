@@ -0,0 +1,29 @@
+package com.course.system.service;
+
+import com.course.system.dto.TokenResponse;
+import com.course.system.entity.User;
+
+public interface AuthTokenService {
+
+    /**
+     * 登录成功后签发访问令牌与新的刷新令牌
+     */
+    TokenResponse issueTokens(User user);
+
+    /**
+     * 使用刷新令牌换取新的令牌对，旧的刷新令牌随即失效
+     *
+     * @return 刷新令牌无效、过期或已被使用时返回 null
+     */
+    TokenResponse refresh(String refreshToken);
+
+    /**
+     * 登出：吊销访问令牌及其所在的刷新令牌族（参数均可为 null）
+     */
+    void logout(String accessToken, String refreshToken);
+
+    /**
+     * 吊销用户的全部刷新令牌（修改或重置密码后调用）
+     */
+    void revokeAllForUser(String userId);
+}
@@ -0,0 +1,156 @@
+package com.course.system.service;
+
+import com.course.system.dto.TokenResponse;
+import com.course.system.entity.RefreshToken;
+import com.course.system.entity.User;
+import com.course.system.mapper.RefreshTokenMapper;
+import com.course.system.mapper.UserMapper;
+import com.course.system.security.JwtPrincipal;
+import com.course.system.security.JwtUtil;
+import com.course.system.security.TokenRevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * 访问令牌与刷新令牌
+ *
+ * 访问令牌是短期 JWT（jwt.expiration，默认 15 分钟），认证时不访问数据库；
+ * 刷新令牌是随机字符串，数据库中只保存其 SHA-256 摘要，每次使用后轮换为新令牌。
+ * 已轮换的刷新令牌再次出现说明令牌可能被盗用，此时吊销整个令牌族，需要重新登录。
+ */
+@Service
+public class AuthTokenServiceImpl implements AuthTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthTokenServiceImpl.class);
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+    private static final String STATUS_ROTATED = "ROTATED";
+
+    private static final int REFRESH_TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenMapper refreshTokenMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Value("${jwt.refresh-expiration:1209600000}") // 14 days in milliseconds
+    private long refreshExpiration;
+
+    @Override
+    public TokenResponse issueTokens(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public TokenResponse refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return null;
+        }
+        String hash = hash(refreshToken);
+        RefreshToken stored = refreshTokenMapper.selectByHash(hash);
+        if (stored == null || stored.getExpiresAt().before(new Date())) {
+            return null;
+        }
+        if (STATUS_ROTATED.equals(stored.getStatus())) {
+            refreshTokenMapper.revokeFamily(stored.getFamilyId());
+            logger.warn("Refresh token reuse detected for user {}, revoked token family {}",
+                    stored.getUserId(), stored.getFamilyId());
+            return null;
+        }
+        // 并发使用同一令牌时只有一个请求能完成轮换
+        if (refreshTokenMapper.updateStatus(hash, STATUS_ACTIVE, STATUS_ROTATED) == 0) {
+            return null;
+        }
+        User user = userMapper.selectById(stored.getUserId());
+        if (user == null) {
+            return null;
+        }
+        return issue(user, stored.getFamilyId());
+    }
+
+    @Override
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            JwtPrincipal principal = jwtUtil.verify(accessToken);
+            if (principal != null) {
+                revocationList.revoke(principal.getTokenId(), principal.getExpiresAt());
+            }
+        }
+        if (refreshToken != null) {
+            RefreshToken stored = refreshTokenMapper.selectByHash(hash(refreshToken));
+            if (stored != null) {
+                refreshTokenMapper.revokeFamily(stored.getFamilyId());
+            }
+        }
+    }
+
+    @Override
+    public void revokeAllForUser(String userId) {
+        int revoked = refreshTokenMapper.revokeByUser(userId);
+        if (revoked > 0) {
+            logger.info("Revoked {} refresh tokens for user {}", revoked, userId);
+        }
+    }
+
+    /**
+     * 定期删除已过期的刷新令牌与吊销记录
+     */
+    @Scheduled(cron = "${jwt.purge-cron:0 30 3 * * ?}")
+    public void purgeExpired() {
+        int refreshTokens = refreshTokenMapper.deleteExpired(new Date());
+        int revokedTokens = revocationList.purgeExpired();
+        logger.info("Purged {} expired refresh tokens and {} expired revocation records",
+                refreshTokens, revokedTokens);
+    }
+
+    private TokenResponse issue(User user, String familyId) {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken stored = new RefreshToken();
+        stored.setTokenHash(hash(refreshToken));
+        stored.setUserId(user.getUserId());
+        stored.setFamilyId(familyId);
+        stored.setStatus(STATUS_ACTIVE);
+        stored.setExpiresAt(new Date(System.currentTimeMillis() + refreshExpiration));
+        refreshTokenMapper.insert(stored);
+
+        return TokenResponse.builder()
+                .token(jwtUtil.generateToken(user.getUserId(), user.getRole()))
+                .refreshToken(refreshToken)
+                .expiresIn(jwtUtil.getExpiration() / 1000)
+                .build();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.course.system.service;
+
+import com.course.system.entity.ChunkedUpload;
+import com.course.system.entity.CourseResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 分片上传服务
+ * 大文件按分片上传，支持并行上传、断点续传与服务端合并校验
+ */
+public interface ChunkedUploadService {
+
+    /**
+     * 创建分片上传会话
+     *
+     * @param chunkSize   期望的分片大小，为空时使用服务端默认值
+     * @param contentHash 整个文件的 SHA-256 摘要（可选），合并时校验
+     */
+    ChunkedUpload initUpload(String courseId, String uploaderId, String fileName, long fileSize,
+                             String fileType, String contentHash, Integer chunkSize,
+                             String resourceName, String resourceType, String description);
+
+    /**
+     * 获取上传会话（仅限会话创建者）
+     *
+     * @return 会话不存在或不属于该用户时返回 null
+     */
+    ChunkedUpload getUpload(String uploadId, String uploaderId);
+
+    /**
+     * 接收一个分片，重复上传同一分片会覆盖之前的内容
+     *
+     * @param chunkSha256 分片内容 SHA-256 摘要（可选）
+     */
+    void putChunk(ChunkedUpload upload, int index, InputStream in, String chunkSha256) throws IOException;
+
+    /**
+     * 获取已接收的分片序号（升序）
+     */
+    List<Integer> getReceivedChunks(ChunkedUpload upload);
+
+    /**
+     * 合并所有分片、校验完整性并登记为课程资源
+     */
+    CourseResource complete(ChunkedUpload upload) throws IOException;
+
+    /**
+     * 取消上传并清理已接收的分片
+     *
+     * @return 会话仍在上传中并已取消时返回 true；正在合并或已被取消时返回 false
+     */
+    boolean abort(ChunkedUpload upload);
+
+    /**
+     * 清理在给定时间之前创建、仍未完成的上传会话
+     *
+     * @return 清理的会话数
+     */
+    int abortExpired(Date before);
+}
@@ -0,0 +1,352 @@
+package com.course.system.service;
+
+import com.course.system.entity.ChunkedUpload;
+import com.course.system.entity.CourseResource;
+import com.course.system.mapper.ChunkedUploadMapper;
+import com.course.system.storage.BlobStore;
+import com.course.system.storage.StreamingFileWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Service
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadServiceImpl.class);
+
+    private static final String STATUS_UPLOADING = "UPLOADING";
+    private static final String STATUS_COMPLETING = "COMPLETING";
+    private static final String STATUS_EXPIRED = "EXPIRED";
+    private static final String STATUS_ABORTED = "ABORTED";
+
+    private static final String CHUNK_SUFFIX = ".part";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Pattern SHA256_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    /**
+     * 最小分片大小，避免客户端把文件切成过多碎片
+     */
+    private static final long MIN_CHUNK_SIZE = DataSize.ofKilobytes(256).toBytes();
+
+    @Autowired
+    private ChunkedUploadMapper uploadMapper;
+
+    @Autowired
+    private CourseResourceService resourceService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${file.chunked.chunk-size:8MB}")
+    private DataSize defaultChunkSize;
+
+    @Value("${file.chunked.max-chunk-size:64MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${file.chunked.max-file-size:20GB}")
+    private DataSize maxFileSize;
+
+    private Path chunkRoot;
+
+    /**
+     * 按上传会话分段的读写锁：写入分片持读锁，complete / abort 切换状态持写锁，
+     * 状态离开 UPLOADING 之后不会再有分片被替换
+     */
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+
+    @PostConstruct
+    public void init() throws IOException {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        chunkRoot = Paths.get(uploadDir, "chunks");
+        Files.createDirectories(chunkRoot);
+    }
+
+    @Override
+    public ChunkedUpload initUpload(String courseId, String uploaderId, String fileName, long fileSize,
+                                    String fileType, String contentHash, Integer chunkSize,
+                                    String resourceName, String resourceType, String description) {
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        if (fileSize > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File exceeds maximum size of " + maxFileSize);
+        }
+        if (contentHash != null && !SHA256_PATTERN.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash");
+        }
+
+        long size = chunkSize != null ? chunkSize : defaultChunkSize.toBytes();
+        if (size < MIN_CHUNK_SIZE || size > maxChunkSize.toBytes()) {
+            throw new IllegalArgumentException("Chunk size must be between "
+                    + MIN_CHUNK_SIZE + " and " + maxChunkSize.toBytes() + " bytes");
+        }
+        long totalChunks = (fileSize + size - 1) / size;
+        if (totalChunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many chunks");
+        }
+
+        ChunkedUpload upload = new ChunkedUpload();
+        upload.setUploadId(UUID.randomUUID().toString());
+        upload.setCourseId(courseId);
+        upload.setUploaderId(uploaderId);
+        upload.setOriginalFileName(fileName);
+        upload.setFileType(fileType);
+        upload.setFileSize(fileSize);
+        upload.setChunkSize((int) size);
+        upload.setTotalChunks((int) totalChunks);
+        upload.setContentHash(contentHash);
+        upload.setResourceName(resourceName);
+        upload.setResourceType(resourceType);
+        upload.setDescription(description);
+        upload.setStatus(STATUS_UPLOADING);
+
+        uploadMapper.insert(upload);
+        logger.info("Chunked upload {} started: {} ({} bytes, {} chunks)",
+                upload.getUploadId(), fileName, fileSize, totalChunks);
+        return upload;
+    }
+
+    @Override
+    public ChunkedUpload getUpload(String uploadId, String uploaderId) {
+        ChunkedUpload upload = uploadMapper.selectById(uploadId);
+        if (upload == null || !upload.getUploaderId().equals(uploaderId)) {
+            return null;
+        }
+        return upload;
+    }
+
+    @Override
+    public void putChunk(ChunkedUpload upload, int index, InputStream in, String chunkSha256) throws IOException {
+        if (index < 0 || index >= upload.getTotalChunks()) {
+            throw new IllegalArgumentException("Chunk index out of range: " + index);
+        }
+        if (!STATUS_UPLOADING.equals(upload.getStatus())) {
+            throw new IllegalArgumentException("Upload is already completing");
+        }
+
+        long expectedSize = expectedChunkSize(upload, index);
+        Path chunkPath = chunkPath(upload.getUploadId(), index);
+        // 先写入临时文件，校验通过后再替换，校验失败不会破坏已收到的同序号分片
+        Path tempPath = chunkPath.resolveSibling(chunkPath.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        Files.createDirectories(tempPath.getParent());
+        try {
+            // 最多读取 expectedSize + 1 字节，超出即说明分片过大，避免恶意请求写满磁盘
+            StreamingFileWriter.WriteResult written = StreamingFileWriter.writeTo(
+                    new BoundedInputStream(in, expectedSize + 1), tempPath);
+
+            if (written.getSize() != expectedSize) {
+                throw new IllegalArgumentException("Chunk " + index + " size mismatch: expected "
+                        + expectedSize + ", got " + written.getSize());
+            }
+            if (chunkSha256 != null && !chunkSha256.equalsIgnoreCase(written.getSha256())) {
+                throw new IllegalArgumentException("Chunk " + index + " checksum mismatch");
+            }
+
+            // 写入期间会话可能已开始合并或被取消：持读锁重新读取状态后再移动到位
+            ReadWriteLock lock = lockFor(upload.getUploadId());
+            lock.readLock().lock();
+            try {
+                ChunkedUpload current = uploadMapper.selectById(upload.getUploadId());
+                if (current == null || !STATUS_UPLOADING.equals(current.getStatus())) {
+                    throw new IllegalArgumentException("Upload is already completing");
+                }
+                Files.move(tempPath, chunkPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public List<Integer> getReceivedChunks(ChunkedUpload upload) {
+        List<Integer> received = new ArrayList<>();
+        Path dir = chunkRoot.resolve(upload.getUploadId());
+        if (!Files.isDirectory(dir)) {
+            return received;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + CHUNK_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                received.add(Integer.parseInt(name.substring(0, name.length() - CHUNK_SUFFIX.length())));
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list chunks for upload {}", upload.getUploadId(), e);
+        }
+        Collections.sort(received);
+        return received;
+    }
+
+    @Override
+    public CourseResource complete(ChunkedUpload upload) throws IOException {
+        List<Integer> received = getReceivedChunks(upload);
+        if (received.size() != upload.getTotalChunks()) {
+            throw new IllegalArgumentException("Missing chunks: received "
+                    + received.size() + " of " + upload.getTotalChunks());
+        }
+
+        // 防止同一会话被并发合并；切换后不再接受分片写入
+        if (!transition(upload.getUploadId(), STATUS_UPLOADING, STATUS_COMPLETING)) {
+            throw new IllegalArgumentException("Upload is already completing");
+        }
+
+        Path assembled = blobStore.createTempFile();
+        boolean success = false;
+        try {
+            // 按顺序拼接所有分片，同时计算整个文件的摘要
+            StreamingFileWriter.WriteResult written;
+            try (InputStream in = new SequenceInputStream(chunkStreams(upload))) {
+                written = StreamingFileWriter.writeTo(in, assembled);
+            }
+
+            if (written.getSize() != upload.getFileSize()) {
+                throw new IllegalArgumentException("Assembled size mismatch: expected "
+                        + upload.getFileSize() + ", got " + written.getSize());
+            }
+            if (upload.getContentHash() != null && !upload.getContentHash().equals(written.getSha256())) {
+                throw new IllegalArgumentException("Assembled file checksum mismatch");
+            }
+
+            CourseResource resource = resourceService.importResource(upload.getCourseId(), upload.getUploaderId(),
+                    assembled, written.getSha256(), written.getSize(), upload.getOriginalFileName(),
+                    upload.getFileType(), upload.getResourceName(), upload.getResourceType(),
+                    upload.getDescription());
+            success = resource != null;
+            if (success) {
+                cleanup(upload.getUploadId());
+                logger.info("Chunked upload {} completed as resource {}",
+                        upload.getUploadId(), resource.getResourceId());
+            }
+            return resource;
+        } finally {
+            Files.deleteIfExists(assembled);
+            if (!success) {
+                uploadMapper.updateStatus(upload.getUploadId(), STATUS_COMPLETING, STATUS_UPLOADING);
+            }
+        }
+    }
+
+    @Override
+    public boolean abort(ChunkedUpload upload) {
+        // 与 complete 相同先切换状态：正在合并的会话不能删除其分片与记录
+        if (!transition(upload.getUploadId(), STATUS_UPLOADING, STATUS_ABORTED)) {
+            return false;
+        }
+        cleanup(upload.getUploadId());
+        logger.info("Chunked upload {} aborted", upload.getUploadId());
+        return true;
+    }
+
+    @Override
+    public int abortExpired(Date before) {
+        int aborted = 0;
+        for (ChunkedUpload upload : uploadMapper.selectCreatedBefore(before)) {
+            // 仅清理仍在上传中的会话；状态切换失败说明正在合并，跳过
+            if (transition(upload.getUploadId(), STATUS_UPLOADING, STATUS_EXPIRED)) {
+                cleanup(upload.getUploadId());
+                aborted++;
+            }
+        }
+        if (aborted > 0) {
+            logger.info("Aborted {} expired chunked uploads", aborted);
+        }
+        return aborted;
+    }
+
+    /**
+     * 持写锁切换会话状态，等待正在移动到位的分片写完
+     *
+     * @return 恰好更新了一行时返回 true
+     */
+    private boolean transition(String uploadId, String from, String to) {
+        ReadWriteLock lock = lockFor(uploadId);
+        lock.writeLock().lock();
+        try {
+            return uploadMapper.updateStatus(uploadId, from, to) == 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ReadWriteLock lockFor(String uploadId) {
+        return locks[Math.floorMod(uploadId.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * 删除会话记录与分片目录
+     */
+    private void cleanup(String uploadId) {
+        uploadMapper.delete(uploadId);
+        try {
+            FileUtils.deleteDirectory(chunkRoot.resolve(uploadId).toFile());
+        } catch (IOException e) {
+            logger.error("Failed to delete chunk directory for upload {}", uploadId, e);
+        }
+    }
+
+    private long expectedChunkSize(ChunkedUpload upload, int index) {
+        long offset = (long) index * upload.getChunkSize();
+        return Math.min(upload.getChunkSize(), upload.getFileSize() - offset);
+    }
+
+    private Path chunkPath(String uploadId, int index) {
+        return chunkRoot.resolve(uploadId).resolve(index + CHUNK_SUFFIX);
+    }
+
+    /**
+     * 按序号依次打开分片，同一时刻只打开一个文件
+     */
+    private Enumeration<InputStream> chunkStreams(ChunkedUpload upload) {
+        return new Enumeration<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < upload.getTotalChunks();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(chunkPath(upload.getUploadId(), next++));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
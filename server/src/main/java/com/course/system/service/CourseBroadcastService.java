@@ -0,0 +1,18 @@
+package com.course.system.service;
+
+import com.course.system.dto.BroadcastJob;
+
+public interface CourseBroadcastService {
+
+    /**
+     * 创建群发任务，向课程的所有学生发送同一条通知短信
+     *
+     * @return 任务；该课程已有未完成的群发任务或任务队列已满时返回 null
+     */
+    BroadcastJob broadcast(String courseId, String senderId, String content);
+
+    /**
+     * 查询任务进度，任务不存在或已过保留时间时返回 null
+     */
+    BroadcastJob getJob(String jobId);
+}
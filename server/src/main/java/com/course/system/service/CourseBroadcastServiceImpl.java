@@ -0,0 +1,250 @@
+package com.course.system.service;
+
+import com.course.system.config.SmsConfig;
+import com.course.system.dto.BroadcastJob;
+import com.course.system.mapper.CourseEnrollmentMapper;
+import com.course.system.sms.SmsProvider;
+import com.course.system.sms.SmsProviderFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 课程群发通知
+ *
+ * 任务在单独的线程中执行：按手机号键集分页读取课程学生的手机号 (selectStudentPhonesPage，
+ * SQL 中已去重)，每页 min(sms.broadcast.batch-size, 服务商上限) 个，作为一批调用服务商的批量接口发送。
+ * 每页是一次独立查询，等待发送名额或重试退避时不占用数据库连接。
+ * 同时进行的批次数不超过 sms.broadcast.parallelism，读取线程在名额用完时等待，
+ * 因此内存中最多只有 parallelism + 1 批号码。失败的批次按 sms.dispatch 的重试次数与退避重试。
+ *
+ * 任务状态只保存在本进程内，保留 sms.broadcast.job-retention。
+ */
+@Service
+public class CourseBroadcastServiceImpl implements CourseBroadcastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseBroadcastServiceImpl.class);
+
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^1[3-9]\\d{9}$");
+
+    @Autowired
+    private CourseEnrollmentMapper enrollmentMapper;
+
+    @Autowired
+    private SmsProviderFactory smsProviderFactory;
+
+    @Autowired
+    private SmsConfig smsConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SmsConfig.BroadcastConfig config;
+
+    private ThreadPoolExecutor jobExecutor;
+
+    private ThreadPoolExecutor batchExecutor;
+
+    private Cache<String, BroadcastJob> jobs;
+
+    /**
+     * 课程 ID -> 未完成的任务 ID，同一课程同时只允许一个群发任务
+     */
+    private final ConcurrentHashMap<String, String> activeCourses = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        config = smsConfig.getBroadcast();
+        jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getMaxQueuedJobs()),
+                r -> {
+                    Thread t = new Thread(r, "sms-broadcast");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger counter = new AtomicInteger();
+        // 提交前已取得名额，队列不会超过 parallelism
+        batchExecutor = new ThreadPoolExecutor(config.getParallelism(), config.getParallelism(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getParallelism()),
+                r -> {
+                    Thread t = new Thread(r, "sms-broadcast-batch-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        jobs = Caffeine.newBuilder()
+                .expireAfterWrite(config.getJobRetention())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+
+    @Override
+    public BroadcastJob broadcast(String courseId, String senderId, String content) {
+        String jobId = UUID.randomUUID().toString();
+        if (activeCourses.putIfAbsent(courseId, jobId) != null) {
+            return null;
+        }
+
+        BroadcastJob job = new BroadcastJob();
+        job.setJobId(jobId);
+        job.setCourseId(courseId);
+        job.setSenderId(senderId);
+        job.setCreatedAt(new Date());
+        jobs.put(jobId, job);
+        try {
+            jobExecutor.execute(() -> run(job, content));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(jobId);
+            activeCourses.remove(courseId, jobId);
+            logger.warn("Broadcast queue is full, rejecting broadcast for course {}", courseId);
+            return null;
+        }
+        logger.info("Broadcast {} queued for course {} by {}", jobId, courseId, senderId);
+        return job;
+    }
+
+    @Override
+    public BroadcastJob getJob(String jobId) {
+        return jobs.getIfPresent(jobId);
+    }
+
+    private void run(BroadcastJob job, String content) {
+        job.setStatus(BroadcastJob.RUNNING);
+        job.setStartedAt(new Date());
+        SmsProvider provider = smsProviderFactory.getProvider();
+        int batchSize = Math.max(1, Math.min(config.getBatchSize(), provider.getMaxBatchSize()));
+        Semaphore permits = new Semaphore(config.getParallelism());
+        int read = 0;
+
+        try {
+            String after = "";
+            List<String> page;
+            do {
+                page = enrollmentMapper.selectStudentPhonesPage(job.getCourseId(), after, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                read += page.size();
+                after = page.get(page.size() - 1);
+                List<String> batch = new ArrayList<>(page.size());
+                for (String phoneNumber : page) {
+                    if (PHONE_PATTERN.matcher(phoneNumber).matches()) {
+                        batch.add(phoneNumber);
+                    } else {
+                        job.getSkipped().incrementAndGet();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    job.getTotal().addAndGet(batch.size());
+                    submitBatch(job, provider, batch, content, permits);
+                }
+            } while (page.size() >= batchSize);
+            // 未填写手机号的学生也计入跳过数
+            job.getSkipped().addAndGet(Math.max(0, enrollmentMapper.countByCourse(job.getCourseId()) - read));
+            job.setRecipientsResolved(true);
+
+            // 等待所有批次完成
+            permits.acquire(config.getParallelism());
+            permits.release(config.getParallelism());
+
+            if (job.getFailed().get() == 0) {
+                job.setStatus(BroadcastJob.COMPLETED);
+            } else {
+                job.setStatus(job.getSent().get() > 0 ? BroadcastJob.PARTIAL : BroadcastJob.FAILED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setError("interrupted");
+            job.setStatus(BroadcastJob.FAILED);
+        } catch (RuntimeException e) {
+            logger.error("Broadcast {} for course {} failed", job.getJobId(), job.getCourseId(), e);
+            job.setError(e.getMessage());
+            job.setStatus(BroadcastJob.FAILED);
+        } finally {
+            job.setFinishedAt(new Date());
+            activeCourses.remove(job.getCourseId(), job.getJobId());
+        }
+        logger.info("Broadcast {} for course {} finished: {} sent, {} failed, {} skipped",
+                job.getJobId(), job.getCourseId(), job.getSent().get(), job.getFailed().get(), job.getSkipped().get());
+    }
+
+    /**
+     * 取得名额后提交一批；名额用完时阻塞读取线程（此时没有打开的查询）
+     */
+    private void submitBatch(BroadcastJob job, SmsProvider provider, List<String> phoneNumbers,
+                             String content, Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    sendBatch(job, provider, phoneNumbers, content);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            record(job, phoneNumbers.size(), false);
+        }
+    }
+
+    private void sendBatch(BroadcastJob job, SmsProvider provider, List<String> phoneNumbers, String content) {
+        SmsConfig.DispatchConfig retry = smsConfig.getDispatch();
+        for (int attempt = 1; ; attempt++) {
+            boolean sent;
+            try {
+                sent = provider.sendNotice(phoneNumbers, content);
+            } catch (RuntimeException e) {
+                logger.error("SMS provider {} threw while sending broadcast {}",
+                        provider.getProviderName(), job.getJobId(), e);
+                sent = false;
+            }
+            if (sent || attempt >= retry.getMaxAttempts()) {
+                record(job, phoneNumbers.size(), sent);
+                return;
+            }
+            // 指数退避加随机抖动，与单条验证码的重试相同
+            long cap = Math.min(retry.getMaxBackoff().toMillis(),
+                    retry.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                record(job, phoneNumbers.size(), false);
+                return;
+            }
+        }
+    }
+
+    private void record(BroadcastJob job, int recipients, boolean sent) {
+        (sent ? job.getSent() : job.getFailed()).addAndGet(recipients);
+        meterRegistry.counter("sms.broadcast", "outcome", sent ? "sent" : "failed").increment(recipients);
+    }
+}
@@ -3,6 +3,8 @@ package com.course.system.service;
 import com.course.system.entity.CourseResource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface CourseResourceService {
@@ -13,6 +15,26 @@ public interface CourseResourceService {
     CourseResource uploadResource(String courseId, String uploaderId, MultipartFile file,
                                    String resourceName, String resourceType, String description);
 
+    /**
+     * 秒传：服务器上已有相同内容时仅凭摘要创建资源记录，不传输文件内容
+     *
+     * @return 内容不存在或大小不一致时返回 null，客户端需改为完整上传
+     */
+    CourseResource uploadResourceByHash(String courseId, String uploaderId, String contentHash,
+                                        long fileSize, String originalFileName, String fileType,
+                                        String resourceName, String resourceType, String description);
+
+    /**
+     * 将服务器上已写好的文件登记为课程资源（如分片上传合并后的文件）
+     *
+     * @param file        文件路径，调用后文件归存储层所有，调用方不应再使用
+     * @param contentHash 文件内容 SHA-256 摘要
+     * @param fileSize    文件大小
+     */
+    CourseResource importResource(String courseId, String uploaderId, Path file, String contentHash,
+                                  long fileSize, String originalFileName, String fileType,
+                                  String resourceName, String resourceType, String description) throws IOException;
+
     /**
      * 获取资源信息
      */
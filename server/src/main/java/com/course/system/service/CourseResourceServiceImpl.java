@@ -1,7 +1,15 @@
 package com.course.system.service;
 
+import com.course.system.download.HotFileCache;
 import com.course.system.entity.CourseResource;
+import com.course.system.entity.ResourceBlob;
 import com.course.system.mapper.CourseResourceMapper;
+import com.course.system.preview.ThumbnailGenerator;
+import com.course.system.storage.BlobStore;
+import com.course.system.storage.ColdStorage;
+import com.course.system.storage.ResourceStorageFactory;
+import com.course.system.storage.StorageKeys;
+import com.course.system.storage.StreamingFileWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,11 +20,12 @@ import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 @Service
 public class CourseResourceServiceImpl implements CourseResourceService {
@@ -26,9 +35,35 @@ public class CourseResourceServiceImpl implements CourseResourceService {
     @Autowired
     private CourseResourceMapper resourceMapper;
 
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Autowired
+    private DownloadCountBuffer downloadCountBuffer;
+
+    @Autowired
+    private ResourceListCache resourceListCache;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private ColdStorage coldStorage;
+
     @Value("${file.upload-dir:./uploads}")
     private String uploadDir;
 
+    private static final Pattern CONTENT_HASH_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
     @PostConstruct
     public void init() {
         // 确保上传目录存在
@@ -48,68 +83,151 @@ public class CourseResourceServiceImpl implements CourseResourceService {
             throw new IllegalArgumentException("File is empty");
         }
 
+        Path tempFile = null;
         try {
-            // 生成存储文件名
-            String originalFileName = file.getOriginalFilename();
-            String extension = "";
-            if (originalFileName != null && originalFileName.contains(".")) {
-                extension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            // 流式写入临时文件，同时计算大小与摘要（不将整个文件读入堆内存）
+            tempFile = blobStore.createTempFile();
+            StreamingFileWriter.WriteResult written;
+            try (InputStream in = file.getInputStream()) {
+                written = StreamingFileWriter.writeTo(in, tempFile);
             }
-            String storedFileName = UUID.randomUUID().toString() + extension;
 
-            // 按课程ID创建子目录
-            String courseDir = uploadDir + File.separator + courseId;
-            File courseDirFile = new File(courseDir);
-            if (!courseDirFile.exists()) {
-                courseDirFile.mkdirs();
-            }
+            // 按内容摘要存储，相同内容只保存一份
+            ResourceBlob blob = blobStore.acquire(written.getSha256(), written.getSize(), tempFile);
 
-            // 保存文件
-            String filePath = courseDir + File.separator + storedFileName;
-            Path path = Paths.get(filePath);
-            Files.write(path, file.getBytes());
-
-            // 创建资源记录
-            CourseResource resource = new CourseResource();
-            resource.setResourceId(UUID.randomUUID().toString());
-            resource.setCourseId(courseId);
-            resource.setUploaderId(uploaderId);
-            resource.setResourceName(resourceName != null ? resourceName : originalFileName);
-            resource.setOriginalFileName(originalFileName);
-            resource.setStoredFileName(storedFileName);
-            resource.setFilePath(filePath);
-            resource.setFileSize(file.getSize());
-            resource.setFileType(file.getContentType());
-            resource.setResourceType(resourceType != null ? resourceType : "other");
-            resource.setDescription(description);
-            resource.setDownloadCount(0);
-            resource.setVisible(true);
-
-            int result = resourceMapper.insert(resource);
-            if (result > 0) {
-                logger.info("Resource uploaded successfully: {} for course {}", resourceName, courseId);
-                return resource;
-            }
-            return null;
+            CourseResource resource = buildResource(courseId, uploaderId, blob, file.getOriginalFilename(),
+                    file.getContentType(), resourceName, resourceType, description);
+            return saveResource(resource);
         } catch (IOException e) {
             logger.error("Failed to upload resource", e);
             throw new RuntimeException("Failed to upload file", e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    @Override
+    public CourseResource uploadResourceByHash(String courseId, String uploaderId, String contentHash,
+                                                long fileSize, String originalFileName, String fileType,
+                                                String resourceName, String resourceType, String description) {
+        if (contentHash == null || !CONTENT_HASH_PATTERN.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash");
+        }
+
+        ResourceBlob blob;
+        try {
+            blob = blobStore.acquireExisting(contentHash, fileSize);
+        } catch (IOException e) {
+            logger.error("Failed to look up blob {}", contentHash, e);
+            throw new RuntimeException("Failed to look up content", e);
+        }
+        if (blob == null) {
+            // 服务器上没有相同内容，客户端需要上传完整文件
+            return null;
+        }
+
+        CourseResource resource = buildResource(courseId, uploaderId, blob, originalFileName,
+                fileType, resourceName, resourceType, description);
+        return saveResource(resource);
+    }
+
+    @Override
+    public CourseResource importResource(String courseId, String uploaderId, Path file, String contentHash,
+                                         long fileSize, String originalFileName, String fileType,
+                                         String resourceName, String resourceType, String description) throws IOException {
+        ResourceBlob blob = blobStore.acquire(contentHash, fileSize, file);
+        CourseResource resource = buildResource(courseId, uploaderId, blob, originalFileName,
+                fileType, resourceName, resourceType, description);
+        return saveResource(resource);
+    }
+
+    /**
+     * 根据内容块构建资源记录
+     */
+    private CourseResource buildResource(String courseId, String uploaderId, ResourceBlob blob,
+                                         String originalFileName, String fileType,
+                                         String resourceName, String resourceType, String description) {
+        CourseResource resource = new CourseResource();
+        resource.setResourceId(UUID.randomUUID().toString());
+        resource.setCourseId(courseId);
+        resource.setUploaderId(uploaderId);
+        resource.setResourceName(resourceName != null ? resourceName : originalFileName);
+        resource.setOriginalFileName(originalFileName);
+        resource.setStoredFileName(blob.getContentHash());
+        resource.setFilePath(blob.getFilePath());
+        resource.setFileSize(blob.getFileSize());
+        resource.setContentHash(blob.getContentHash());
+        resource.setFileType(fileType);
+        resource.setResourceType(resourceType != null ? resourceType : "other");
+        resource.setDescription(description);
+        resource.setDownloadCount(0);
+        resource.setVisible(true);
+        return resource;
+    }
+
+    /**
+     * 保存资源记录，失败时释放已获取的内容块引用
+     */
+    private CourseResource saveResource(CourseResource resource) {
+        try {
+            if (resourceMapper.insert(resource) > 0) {
+                resourceListCache.invalidate(resource.getCourseId());
+                storageUsageService.recordAdded(resource);
+                logger.info("Resource uploaded successfully: {} for course {}",
+                        resource.getResourceName(), resource.getCourseId());
+                // 后台生成缩略图，不阻塞上传请求
+                thumbnailGenerator.submit(resource);
+                return resource;
+            }
+        } catch (RuntimeException e) {
+            blobStore.release(resource.getContentHash());
+            throw e;
+        }
+        blobStore.release(resource.getContentHash());
+        return null;
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temp file: {}", path, e);
         }
     }
 
     @Override
     public CourseResource getResourceById(String resourceId) {
-        return resourceMapper.selectById(resourceId);
+        CourseResource resource = resourceMapper.selectById(resourceId);
+        if (resource != null) {
+            addPendingDownloads(resource);
+        }
+        return resource;
     }
 
     @Override
     public List<CourseResource> getResourcesByCourse(String courseId) {
-        return resourceMapper.selectByCourseId(courseId);
+        return resourceListCache.get(courseId, resourceMapper::selectByCourseId);
     }
 
     @Override
     public List<CourseResource> getResourcesByUploader(String uploaderId) {
-        return resourceMapper.selectByUploaderId(uploaderId);
+        List<CourseResource> resources = resourceMapper.selectByUploaderId(uploaderId);
+        resources.forEach(this::addPendingDownloads);
+        return resources;
+    }
+
+    /**
+     * 叠加尚未写回数据库的下载次数
+     */
+    private void addPendingDownloads(CourseResource resource) {
+        long pending = downloadCountBuffer.pending(resource.getResourceId());
+        if (pending > 0) {
+            int stored = resource.getDownloadCount() != null ? resource.getDownloadCount() : 0;
+            resource.setDownloadCount((int) (stored + pending));
+        }
     }
 
     @Override
@@ -119,31 +237,62 @@ public class CourseResourceServiceImpl implements CourseResourceService {
             return false;
         }
 
-        // 删除文件
-        try {
-            Path path = Paths.get(resource.getFilePath());
-            Files.deleteIfExists(path);
-        } catch (IOException e) {
-            logger.error("Failed to delete file: {}", resource.getFilePath(), e);
+        // 先删除数据库记录，再释放文件引用
+        if (resourceMapper.delete(resourceId) == 0) {
+            return false;
         }
+        downloadCountBuffer.discard(resourceId);
+        resourceListCache.invalidate(resource.getCourseId());
+        storageUsageService.recordRemoved(resource);
+        String storageKey = StorageKeys.resourceKey(resource);
+        hotFileCache.invalidate(storageKey);
+        hotFileCache.invalidate(StorageKeys.thumbnailKey(storageKey));
 
-        // 删除数据库记录
-        return resourceMapper.delete(resourceId) > 0;
+        // 内容块引用计数归零时才删除文件；旧版文件直接删除
+        if (resource.getContentHash() == null || !blobStore.release(resource.getContentHash())) {
+            try {
+                storageFactory.getStorage().delete(storageKey);
+                storageFactory.getStorage().delete(StorageKeys.thumbnailKey(storageKey));
+                coldStorage.delete(storageKey);
+            } catch (IOException e) {
+                logger.error("Failed to delete file: {}", resource.getFilePath(), e);
+            }
+        }
+        return true;
     }
 
     @Override
     public boolean updateResource(CourseResource resource) {
-        return resourceMapper.update(resource) > 0;
+        boolean updated = resourceMapper.update(resource) > 0;
+        if (updated) {
+            invalidateCourseOf(resource.getResourceId());
+        }
+        return updated;
     }
 
     @Override
     public void incrementDownloadCount(String resourceId) {
-        resourceMapper.incrementDownloadCount(resourceId);
+        // 先累加在内存中，由 DownloadCountBuffer 定时批量写回
+        downloadCountBuffer.increment(resourceId);
     }
 
     @Override
     public boolean updateVisibility(String resourceId, boolean visible) {
-        return resourceMapper.updateVisibility(resourceId, visible) > 0;
+        boolean updated = resourceMapper.updateVisibility(resourceId, visible) > 0;
+        if (updated) {
+            invalidateCourseOf(resourceId);
+        }
+        return updated;
+    }
+
+    /**
+     * 使资源所属课程的列表缓存失效
+     */
+    private void invalidateCourseOf(String resourceId) {
+        CourseResource stored = resourceMapper.selectById(resourceId);
+        if (stored != null) {
+            resourceListCache.invalidate(stored.getCourseId());
+        }
     }
 
     @Override
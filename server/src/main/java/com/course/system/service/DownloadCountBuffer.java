@@ -0,0 +1,152 @@
+package com.course.system.service;
+
+import com.course.system.mapper.CourseResourceMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 下载次数写回缓冲
+ *
+ * 下载时只在内存中累加（LongAdder，热点资源不会争用同一把锁），
+ * 由定时任务批量写回 course_resources，应用关闭前再写回一次。
+ * 避免大量学生同时下载同一资源时在同一行上排队等待行锁。
+ *
+ * 写回后计数为 0 的资源从缓冲中移除；累计次数在超过资源列表缓存有效期未被访问后过期，
+ * 长时间运行时内存占用只与近期被下载的资源数量有关。
+ */
+@Component
+public class DownloadCountBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadCountBuffer.class);
+
+    @Autowired
+    private CourseResourceMapper resourceMapper;
+
+    @Value("${file.download-count.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file.list-cache.ttl-seconds:300}")
+    private long listCacheTtlSeconds;
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 累计下载次数（只增不减），供资源列表缓存补算下载次数。
+     * 每次读取都会续期，且有效期长于列表缓存，缓存中仍在使用的加载时快照对应的累计值不会先过期
+     */
+    private Cache<String, LongAdder> totals;
+
+    @PostConstruct
+    public void init() {
+        totals = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofSeconds(listCacheTtlSeconds).plusMinutes(1))
+                .build();
+    }
+
+    /**
+     * 记录一次下载
+     */
+    public void increment(String resourceId) {
+        add(resourceId, 1);
+        totals.get(resourceId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * 近期的累计下载次数
+     */
+    public long total(String resourceId) {
+        LongAdder adder = totals.getIfPresent(resourceId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * 尚未写回数据库的下载次数
+     */
+    public long pending(String resourceId) {
+        LongAdder adder = counters.get(resourceId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * 资源删除后丢弃其未写回的计数
+     */
+    public void discard(String resourceId) {
+        counters.remove(resourceId);
+        totals.invalidate(resourceId);
+    }
+
+    /**
+     * 定时批量写回
+     */
+    @Scheduled(fixedDelayString = "${file.download-count.flush-interval-ms:5000}")
+    public void flush() {
+        Map<String, Long> batch = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta == 0) {
+                // 上次写回后没有新的下载，移除计数器；移除后才到达的下载由 add 重新记录
+                if (counters.remove(entry.getKey(), entry.getValue())) {
+                    long late = entry.getValue().sumThenReset();
+                    if (late != 0) {
+                        add(entry.getKey(), late);
+                    }
+                }
+                continue;
+            }
+            // 减去已取走的部分而不是清零，取数期间并发发生的下载不会丢失
+            entry.getValue().add(-delta);
+            batch.put(entry.getKey(), delta);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Flushing buffered download counts before shutdown");
+        flush();
+    }
+
+    private void write(Map<String, Long> batch) {
+        try {
+            resourceMapper.addDownloadCounts(batch);
+        } catch (RuntimeException e) {
+            // 写回失败时把计数放回缓冲，下次重试
+            logger.error("Failed to flush {} download counters, will retry", batch.size(), e);
+            batch.forEach(this::add);
+        }
+    }
+
+    /**
+     * 累加未写回的次数；计数器恰好被 flush 移除时，取回记在旧计数器上的部分重新累加
+     */
+    private void add(String resourceId, long delta) {
+        while (delta != 0) {
+            LongAdder adder = counters.computeIfAbsent(resourceId, id -> new LongAdder());
+            adder.add(delta);
+            if (counters.get(resourceId) == adder) {
+                return;
+            }
+            delta = adder.sumThenReset();
+        }
+    }
+}
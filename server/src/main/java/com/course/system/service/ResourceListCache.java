@@ -0,0 +1,112 @@
+package com.course.system.service;
+
+import com.course.system.entity.CourseResource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 课程资源列表缓存
+ *
+ * 按课程缓存 selectByCourseId 的结果，容量与过期时间可配置，命中率等指标通过
+ * /actuator/metrics/cache.gets?tag=cache:course.resources 查看。
+ * 资源上传、删除、修改、可见性变更时由 CourseResourceServiceImpl 精确失效对应课程。
+ *
+ * 下载次数不随缓存过期：缓存中记录加载时的累计下载次数，读取时补上之后新增的部分。
+ */
+@Component
+public class ResourceListCache {
+
+    static final String CACHE_NAME = "course.resources";
+
+    @Autowired
+    private DownloadCountBuffer downloadCountBuffer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.list-cache.max-courses:1000}")
+    private long maxCourses;
+
+    @Value("${file.list-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, Entry> cache;
+
+    /**
+     * 缓存项：资源列表及加载时每个资源的累计下载次数
+     */
+    private static class Entry {
+        private final List<CourseResource> resources;
+        private final long[] downloadTotals;
+
+        private Entry(List<CourseResource> resources, long[] downloadTotals) {
+            this.resources = resources;
+            this.downloadTotals = downloadTotals;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxCourses)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 获取课程资源列表，未命中时通过 loader 从数据库加载
+     *
+     * @return 资源副本列表，调用方可以自由修改
+     */
+    public List<CourseResource> get(String courseId, Function<String, List<CourseResource>> loader) {
+        Entry entry = cache.get(courseId, id -> load(id, loader));
+        List<CourseResource> copies = new ArrayList<>(entry.resources.size());
+        for (int i = 0; i < entry.resources.size(); i++) {
+            CourseResource cached = entry.resources.get(i);
+            CourseResource copy = new CourseResource();
+            BeanUtils.copyProperties(cached, copy);
+            long sinceLoad = downloadCountBuffer.total(cached.getResourceId()) - entry.downloadTotals[i];
+            if (sinceLoad > 0) {
+                copy.setDownloadCount((int) (cached.getDownloadCount() + sinceLoad));
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * 使指定课程的缓存失效
+     */
+    public void invalidate(String courseId) {
+        if (courseId != null) {
+            cache.invalidate(courseId);
+        }
+    }
+
+    private Entry load(String courseId, Function<String, List<CourseResource>> loader) {
+        List<CourseResource> resources = loader.apply(courseId);
+        long[] totals = new long[resources.size()];
+        for (int i = 0; i < resources.size(); i++) {
+            CourseResource resource = resources.get(i);
+            // 数据库中的次数加上尚未写回的部分，作为加载时刻的下载次数
+            totals[i] = downloadCountBuffer.total(resource.getResourceId());
+            int stored = resource.getDownloadCount() != null ? resource.getDownloadCount() : 0;
+            resource.setDownloadCount((int) (stored + downloadCountBuffer.pending(resource.getResourceId())));
+        }
+        return new Entry(List.copyOf(resources), totals);
+    }
+}
@@ -10,6 +10,13 @@ public interface SmsService {
      */
     boolean sendCode(String phoneNumber, String type);
 
+    /**
+     * Send verification code to phone number, rate limited per client IP as well
+     *
+     * @param clientIp client IP address, or null if unknown
+     */
+    boolean sendCode(String phoneNumber, String type, String clientIp);
+
     /**
      * Verify the code
      * 
@@ -19,4 +26,11 @@ public interface SmsService {
      * @return true if code is valid
      */
     boolean verifyCode(String phoneNumber, String code, String type);
+
+    /**
+     * Check the code without using it up; verifyCode must still be called afterwards
+     *
+     * @return true if code is currently valid
+     */
+    boolean checkCode(String phoneNumber, String code, String type);
 }
@@ -2,7 +2,10 @@ package com.course.system.service;
 
 import com.course.system.entity.SmsVerificationCode;
 import com.course.system.mapper.SmsVerificationCodeMapper;
+import com.course.system.sms.SmsDispatcher;
 import com.course.system.sms.SmsProviderFactory;
+import com.course.system.sms.SmsRateLimiter;
+import com.course.system.sms.VerificationCodeStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,20 +37,34 @@ public class SmsServiceImpl implements SmsService {
     @Autowired
     private SmsProviderFactory smsProviderFactory;
 
+    @Autowired
+    private SmsRateLimiter rateLimiter;
+
+    @Autowired
+    private SmsDispatcher smsDispatcher;
+
+    @Autowired
+    private VerificationCodeStore codeStore;
+
     private static final int CODE_LENGTH = 6;
     private static final int EXPIRE_MINUTES = 5;
 
     @Override
     public boolean sendCode(String phoneNumber, String type) {
+        return sendCode(phoneNumber, type, null);
+    }
+
+    @Override
+    public boolean sendCode(String phoneNumber, String type, String clientIp) {
         // 验证手机号格式
         if (!isValidPhoneNumber(phoneNumber)) {
             logger.warn("Invalid phone number format: {}", phoneNumber);
             return false;
         }
 
-        // 检查发送频率限制（1分钟内不能重复发送）
-        if (isRateLimited(phoneNumber, type)) {
-            logger.warn("SMS rate limited for phone: {}", phoneNumber);
+        // 检查发送频率限制（手机号、IP、全局）
+        if (isRateLimited(phoneNumber, type, clientIp)) {
+            logger.warn("SMS rate limited for phone: {}, ip: {}", phoneNumber, clientIp);
             return false;
         }
 
@@ -59,7 +76,7 @@ public class SmsServiceImpl implements SmsService {
         calendar.add(Calendar.MINUTE, EXPIRE_MINUTES);
         Date expiresAt = calendar.getTime();
 
-        // 保存验证码到数据库
+        // 保存验证码（数据库或内存，见 sms.code-store.mode）
         SmsVerificationCode smsCode = new SmsVerificationCode();
         smsCode.setPhoneNumber(phoneNumber);
         smsCode.setCode(code);
@@ -67,20 +84,18 @@ public class SmsServiceImpl implements SmsService {
         smsCode.setExpiresAt(expiresAt);
         smsCode.setUsed(false);
 
-        int result = codeMapper.insert(smsCode);
+        if (codeStore.save(smsCode)) {
+            // 提交到发送队列后立即返回，由后台线程调用短信服务商（失败时重试）
+            boolean queued = smsDispatcher.submit(phoneNumber, code, () -> codeStore.remove(smsCode));
 
-        if (result > 0) {
-            // 使用配置的短信服务商发送验证码
-            boolean sent = smsProviderFactory.getProvider().sendVerificationCode(phoneNumber, code);
-
-            if (sent) {
-                logger.info("Verification code sent to {} via {}",
+            if (queued) {
+                logger.info("Verification code for {} queued for delivery via {}",
                         phoneNumber, smsProviderFactory.getProviderName());
                 return true;
             } else {
-                logger.error("Failed to send SMS to {}", phoneNumber);
-                // 发送失败时删除数据库记录
-                codeMapper.deleteById(smsCode.getId());
+                logger.error("SMS queue is full, dropping code for {}", phoneNumber);
+                // 未能入队时删除验证码，发送失败后同样删除
+                codeStore.remove(smsCode);
                 return false;
             }
         }
@@ -93,11 +108,8 @@ public class SmsServiceImpl implements SmsService {
             return false;
         }
 
-        SmsVerificationCode smsCode = codeMapper.findLatestValid(phoneNumber, type);
-
-        if (smsCode != null && smsCode.getCode().equals(code)) {
-            // 标记为已使用
-            codeMapper.markAsUsed(smsCode.getId());
+        // 校验成功即标记为已使用，同一验证码只能使用一次
+        if (codeStore.consume(phoneNumber, type, code)) {
             logger.info("Verification code verified successfully for {}", phoneNumber);
             return true;
         }
@@ -106,6 +118,11 @@ public class SmsServiceImpl implements SmsService {
         return false;
     }
 
+    @Override
+    public boolean checkCode(String phoneNumber, String code, String type) {
+        return code != null && code.length() == CODE_LENGTH && codeStore.matches(phoneNumber, type, code);
+    }
+
     /**
      * 生成6位数字验证码
      */
@@ -131,9 +148,22 @@ public class SmsServiceImpl implements SmsService {
 
     /**
      * 检查发送频率限制
+     * 由内存滑动窗口判断；内存限流关闭或刚启动（计数尚未覆盖窗口）时再查询数据库兜底
+     */
+    private boolean isRateLimited(String phoneNumber, String type, String clientIp) {
+        if (!rateLimiter.isEnabled()) {
+            return isRateLimitedByDatabase(phoneNumber, type);
+        }
+        if (!rateLimiter.tryAcquire(phoneNumber, type, clientIp)) {
+            return true;
+        }
+        return !rateLimiter.isWarm() && isRateLimitedByDatabase(phoneNumber, type);
+    }
+
+    /**
      * 同一手机号同一类型，1分钟内只能发送一次
      */
-    private boolean isRateLimited(String phoneNumber, String type) {
+    private boolean isRateLimitedByDatabase(String phoneNumber, String type) {
         SmsVerificationCode lastCode = codeMapper.findLatestByPhoneAndType(phoneNumber, type);
         if (lastCode != null && lastCode.getCreatedAt() != null) {
             long diff = System.currentTimeMillis() - lastCode.getCreatedAt().getTime();
@@ -0,0 +1,27 @@
+package com.course.system.service;
+
+import com.course.system.entity.CourseResource;
+import com.course.system.entity.StorageUsage;
+
+public interface StorageUsageService {
+
+    /**
+     * 资源登记成功后累加课程与上传者的用量
+     */
+    void recordAdded(CourseResource resource);
+
+    /**
+     * 资源删除后扣减课程与上传者的用量
+     */
+    void recordRemoved(CourseResource resource);
+
+    /**
+     * 获取课程的存储用量，没有记录时返回零用量
+     */
+    StorageUsage getCourseUsage(String courseId);
+
+    /**
+     * 获取上传者的存储用量，没有记录时返回零用量
+     */
+    StorageUsage getUploaderUsage(String uploaderId);
+}
@@ -0,0 +1,69 @@
+package com.course.system.service;
+
+import com.course.system.entity.CourseResource;
+import com.course.system.entity.StorageUsage;
+import com.course.system.mapper.StorageUsageMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 存储用量统计
+ *
+ * 在资源登记与删除时增量维护 storage_usage 表，查询用量不需要扫描 course_resources。
+ * 用量按资源记录的文件大小计算（逻辑用量），相同内容去重存储节省的空间不扣除。
+ */
+@Service
+public class StorageUsageServiceImpl implements StorageUsageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageUsageServiceImpl.class);
+
+    static final String OWNER_COURSE = "COURSE";
+    static final String OWNER_UPLOADER = "UPLOADER";
+
+    @Autowired
+    private StorageUsageMapper usageMapper;
+
+    @Override
+    public void recordAdded(CourseResource resource) {
+        addUsage(resource, 1);
+    }
+
+    @Override
+    public void recordRemoved(CourseResource resource) {
+        addUsage(resource, -1);
+    }
+
+    private void addUsage(CourseResource resource, int sign) {
+        long bytes = resource.getFileSize() != null ? resource.getFileSize() : 0;
+        try {
+            usageMapper.addUsage(resource.getCourseId(), resource.getUploaderId(), sign * bytes, sign);
+        } catch (RuntimeException e) {
+            // 统计失败不影响资源操作，可通过 db_schema.sql 中的重算语句修正
+            logger.error("Failed to update storage usage for resource {}", resource.getResourceId(), e);
+        }
+    }
+
+    @Override
+    public StorageUsage getCourseUsage(String courseId) {
+        return getUsage(OWNER_COURSE, courseId);
+    }
+
+    @Override
+    public StorageUsage getUploaderUsage(String uploaderId) {
+        return getUsage(OWNER_UPLOADER, uploaderId);
+    }
+
+    private StorageUsage getUsage(String ownerType, String ownerId) {
+        StorageUsage usage = usageMapper.selectByOwner(ownerType, ownerId);
+        if (usage == null) {
+            usage = new StorageUsage();
+            usage.setOwnerType(ownerType);
+            usage.setOwnerId(ownerId);
+            usage.setTotalBytes(0L);
+            usage.setFileCount(0);
+        }
+        return usage;
+    }
+}
@@ -6,6 +6,16 @@ import java.util.List;
 public interface UserService {
     boolean register(User user);
 
+    /**
+     * 计算密码哈希；哈希线程池繁忙时抛出 PasswordHashRejectedException
+     */
+    String encodePassword(String rawPassword);
+
+    /**
+     * 注册，user 中的密码已由 encodePassword 计算
+     */
+    boolean registerWithEncodedPassword(User user);
+
     User login(String phoneNumber, String password);
 
     User loginBySms(String phoneNumber); // SMS login - returns user if phone exists
@@ -23,4 +33,9 @@ public interface UserService {
     boolean adminResetPassword(String userId, String newPassword);
 
     boolean resetPasswordByPhone(String phoneNumber, String newPassword);
+
+    /**
+     * 按手机号重置密码，密码已由 encodePassword 计算
+     */
+    boolean resetPasswordByPhoneWithEncodedPassword(String phoneNumber, String encodedPassword);
 }
@@ -2,8 +2,8 @@ package com.course.system.service;
 
 import com.course.system.entity.User;
 import com.course.system.mapper.UserMapper;
+import com.course.system.security.PasswordHasher;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.UUID;
@@ -15,18 +15,34 @@ public class UserServiceImpl implements UserService {
     private UserMapper userMapper;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AuthTokenService authTokenService;
 
     @Override
     public boolean register(User user) {
+        if (userMapper.selectByPhoneNumber(user.getPhoneNumber()) != null) {
+            return false;
+        }
+        // Encrypt password before saving
+        user.setPassword(passwordHasher.encode(user.getPassword()));
+        return registerWithEncodedPassword(user);
+    }
+
+    @Override
+    public String encodePassword(String rawPassword) {
+        return passwordHasher.encode(rawPassword);
+    }
+
+    @Override
+    public boolean registerWithEncodedPassword(User user) {
         if (userMapper.selectByPhoneNumber(user.getPhoneNumber()) != null) {
             return false;
         }
         if (user.getUserId() == null) {
             user.setUserId(UUID.randomUUID().toString());
         }
-        // Encrypt password before saving
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
         return userMapper.insert(user) > 0;
     }
 
@@ -34,7 +50,15 @@ public class UserServiceImpl implements UserService {
     public User login(String phoneNumber, String password) {
         User user = userMapper.selectByPhoneNumber(phoneNumber);
         // Use BCrypt matches() to compare passwords
-        if (user != null && passwordEncoder.matches(password, user.getPassword())) {
+        if (user != null && passwordHasher.matches(password, user.getPassword())) {
+            // BCrypt cost 配置变更后在后台透明地重新计算哈希
+            // 只在密码仍为刚校验过的哈希时写入，期间修改或重置的新密码不会被覆盖
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                String userId = user.getUserId();
+                String verifiedHash = user.getPassword();
+                passwordHasher.rehashInBackground(password,
+                        encoded -> userMapper.updatePasswordIfUnchanged(userId, verifiedHash, encoded));
+            }
             return user;
         }
         return null;
@@ -58,9 +82,9 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean updatePassword(String userId, String oldPassword, String newPassword) {
         User user = userMapper.selectById(userId);
-        if (user != null && passwordEncoder.matches(oldPassword, user.getPassword())) {
-            user.setPassword(passwordEncoder.encode(newPassword));
-            return userMapper.updatePassword(userId, user.getPassword()) > 0;
+        if (user != null && passwordHasher.matches(oldPassword, user.getPassword())) {
+            user.setPassword(passwordHasher.encode(newPassword));
+            return updatePasswordAndRevokeTokens(userId, user.getPassword());
         }
         return false;
     }
@@ -69,8 +93,8 @@ public class UserServiceImpl implements UserService {
     public boolean adminResetPassword(String userId, String newPassword) {
         User user = userMapper.selectById(userId);
         if (user != null) {
-            String encodedPassword = passwordEncoder.encode(newPassword);
-            return userMapper.updatePassword(userId, encodedPassword) > 0;
+            String encodedPassword = passwordHasher.encode(newPassword);
+            return updatePasswordAndRevokeTokens(userId, encodedPassword);
         }
         return false;
     }
@@ -90,8 +114,28 @@ public class UserServiceImpl implements UserService {
     public boolean resetPasswordByPhone(String phoneNumber, String newPassword) {
         User user = userMapper.selectByPhoneNumber(phoneNumber);
         if (user != null) {
-            String encodedPassword = passwordEncoder.encode(newPassword);
-            return userMapper.updatePassword(user.getUserId(), encodedPassword) > 0;
+            String encodedPassword = passwordHasher.encode(newPassword);
+            return updatePasswordAndRevokeTokens(user.getUserId(), encodedPassword);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean resetPasswordByPhoneWithEncodedPassword(String phoneNumber, String encodedPassword) {
+        User user = userMapper.selectByPhoneNumber(phoneNumber);
+        if (user != null) {
+            return updatePasswordAndRevokeTokens(user.getUserId(), encodedPassword);
+        }
+        return false;
+    }
+
+    /**
+     * 更新密码，并使该用户已签发的刷新令牌全部失效
+     */
+    private boolean updatePasswordAndRevokeTokens(String userId, String encodedPassword) {
+        if (userMapper.updatePassword(userId, encodedPassword) > 0) {
+            authTokenService.revokeAllForUser(userId);
+            return true;
         }
         return false;
     }
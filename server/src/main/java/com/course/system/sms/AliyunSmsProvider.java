@@ -1,13 +1,21 @@
 package com.course.system.sms;
 
 import com.aliyun.dysmsapi20170525.Client;
+import com.aliyun.dysmsapi20170525.models.SendBatchSmsRequest;
+import com.aliyun.dysmsapi20170525.models.SendBatchSmsResponse;
 import com.aliyun.dysmsapi20170525.models.SendSmsRequest;
 import com.aliyun.dysmsapi20170525.models.SendSmsResponse;
 import com.aliyun.teaopenapi.models.Config;
 import com.course.system.config.SmsConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Aliyun SMS Provider
  * 阿里云短信服务实现
@@ -23,6 +31,13 @@ public class AliyunSmsProvider implements SmsProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(AliyunSmsProvider.class);
 
+    /**
+     * SendBatchSms 单次最多 100 个号码
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     private final SmsConfig.AliyunConfig config;
     private Client client;
 
@@ -75,6 +90,53 @@ public class AliyunSmsProvider implements SmsProvider {
         }
     }
 
+    @Override
+    public boolean sendNotice(List<String> phoneNumbers, String content) {
+        if (client == null) {
+            logger.error("Aliyun SMS client not initialized");
+            return false;
+        }
+        if (config.getNoticeTemplateCode() == null || config.getNoticeTemplateCode().isEmpty()) {
+            logger.error("sms.aliyun.notice-template-code is not configured");
+            return false;
+        }
+
+        try {
+            // 批量接口的号码、签名、模板参数都是与号码一一对应的 JSON 数组
+            int n = phoneNumbers.size();
+            SendBatchSmsRequest request = new SendBatchSmsRequest()
+                    .setPhoneNumberJson(objectMapper.writeValueAsString(phoneNumbers))
+                    .setSignNameJson(objectMapper.writeValueAsString(
+                            Collections.nCopies(n, config.getSignName())))
+                    .setTemplateCode(config.getNoticeTemplateCode())
+                    .setTemplateParamJson(objectMapper.writeValueAsString(
+                            Collections.nCopies(n, Map.of("content", content))));
+
+            SendBatchSmsResponse response = client.sendBatchSms(request);
+
+            if ("OK".equals(response.getBody().getCode())) {
+                logger.info("Notice sent to {} recipients via Aliyun", n);
+                return true;
+            } else {
+                logger.error("Failed to send notice: {} - {}",
+                        response.getBody().getCode(),
+                        response.getBody().getMessage());
+                return false;
+            }
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to build Aliyun batch request", e);
+            return false;
+        } catch (Exception e) {
+            logger.error("Error sending notice via Aliyun", e);
+            return false;
+        }
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
     @Override
     public String getProviderName() {
         return "Aliyun";
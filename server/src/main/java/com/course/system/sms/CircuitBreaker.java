@@ -0,0 +1,89 @@
+package com.course.system.sms;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个短信服务商的熔断器
+ *
+ * 连续失败达到阈值后打开，打开期间不再调用该服务商；
+ * 打开时间结束后进入半开状态，只放行一个试探请求，成功则关闭，失败则重新打开。
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 打开时间，0 表示关闭
+     */
+    private final AtomicLong openedAt = new AtomicLong();
+
+    /**
+     * 半开状态下是否已有试探请求在进行
+     */
+    private final AtomicLong trialStartedAt = new AtomicLong();
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 是否允许本次调用
+     */
+    boolean tryAcquire(long now) {
+        long opened = openedAt.get();
+        if (opened == 0) {
+            return true;
+        }
+        if (now - opened < openMillis) {
+            return false;
+        }
+        // 半开：只有一个调用方能取得试探资格；试探超过一个熔断周期仍无结果时允许重新试探
+        long trial = trialStartedAt.get();
+        if (trial != 0 && now - trial < openMillis) {
+            return false;
+        }
+        return trialStartedAt.compareAndSet(trial, now);
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+        trialStartedAt.set(0);
+        openedAt.set(0);
+    }
+
+    void recordFailure(long now) {
+        if (openedAt.get() != 0) {
+            // 试探失败，重新计时
+            trialStartedAt.set(0);
+            openedAt.set(now);
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            trialStartedAt.set(0);
+            openedAt.compareAndSet(0, now);
+        }
+    }
+
+    /**
+     * 距离允许试探的剩余时间（毫秒），关闭或已可试探时为 0
+     */
+    long remainingOpenMillis(long now) {
+        long opened = openedAt.get();
+        return opened == 0 ? 0 : Math.max(0, opened + openMillis - now);
+    }
+
+    State getState(long now) {
+        long opened = openedAt.get();
+        if (opened == 0) {
+            return State.CLOSED;
+        }
+        return now - opened < openMillis ? State.OPEN : State.HALF_OPEN;
+    }
+}
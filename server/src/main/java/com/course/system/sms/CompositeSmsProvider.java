@@ -0,0 +1,245 @@
+package com.course.system.sms;
+
+import com.course.system.config.SmsConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Composite SMS Provider
+ * 多服务商组合发送
+ *
+ * 同时启用多个服务商（如阿里云与腾讯云），记录每个服务商最近的耗时 (p95) 与失败率，
+ * 每次发送选择预期耗时最低的服务商：p95 / (1 - 失败率)，样本不足时按 expected-latency 估计，
+ * 相同时按 sms.provider 中的顺序。熔断中的服务商排在最后。
+ *
+ * 当前服务商返回失败时立即改用下一个；超过对冲预算（配置值或其滚动 p95）仍未返回时，
+ * 同时向下一个服务商发送，先成功的结果生效。对冲可能使用户收到两条内容相同的验证码。
+ * 批量通知不做对冲（整批重复发送代价太大），仅在失败时按同样的顺序改用下一个服务商。
+ *
+ * 每个服务商有独立的熔断器，调用方 (SmsDispatcher) 不再在组合外层另加熔断；
+ * 调用服务商的线程池由 SmsConfig 创建并在应用关闭时停止。
+ */
+public class CompositeSmsProvider implements SmsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompositeSmsProvider.class);
+
+    private final List<Delegate> delegates = new ArrayList<>();
+
+    private final SmsConfig.FailoverConfig config;
+
+    private final ExecutorService executor;
+
+    public CompositeSmsProvider(List<SmsProvider> providers, SmsConfig.FailoverConfig config,
+                                SmsConfig.DispatchConfig dispatchConfig, ExecutorService executor,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        // 服务商调用在独立线程中执行，发送线程只等待结果；超时的调用仍会完成并计入统计
+        this.executor = executor;
+        for (int i = 0; i < providers.size(); i++) {
+            Delegate delegate = new Delegate(i, providers.get(i),
+                    new ProviderStats(config.getStatsSamples(), config.getStatsWindow().toMillis()),
+                    new CircuitBreaker(dispatchConfig.getBreakerFailureThreshold(),
+                            dispatchConfig.getBreakerOpenDuration().toMillis()));
+            delegates.add(delegate);
+            if (meterRegistry != null) {
+                String name = delegate.provider.getProviderName();
+                Gauge.builder("sms.provider.p95", delegate,
+                                d -> d.stats.snapshot(System.currentTimeMillis()).p95Millis)
+                        .tag("provider", name)
+                        .baseUnit("milliseconds")
+                        .register(meterRegistry);
+                Gauge.builder("sms.provider.error-rate", delegate,
+                                d -> d.stats.snapshot(System.currentTimeMillis()).errorRate)
+                        .tag("provider", name)
+                        .register(meterRegistry);
+                Gauge.builder("sms.circuit.open", delegate,
+                                d -> d.breaker.getState(System.currentTimeMillis()) == CircuitBreaker.State.CLOSED ? 0 : 1)
+                        .tag("provider", name)
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    @Override
+    public boolean sendVerificationCode(String phoneNumber, String code) {
+        long deadline = System.nanoTime() + config.getTimeout().toNanos();
+        List<Delegate> ranked = rank();
+        List<CompletableFuture<Boolean>> inFlight = new ArrayList<>();
+
+        for (int i = 0; i < ranked.size(); i++) {
+            Delegate delegate = ranked.get(i);
+            if (!delegate.breaker.tryAcquire(System.currentTimeMillis())) {
+                continue;
+            }
+            try {
+                inFlight.add(CompletableFuture.supplyAsync(() -> call(delegate, phoneNumber, code), executor));
+            } catch (RejectedExecutionException e) {
+                logger.warn("SMS provider pool is full, skipping {}", delegate.provider.getProviderName());
+                continue;
+            }
+
+            boolean hasNext = i < ranked.size() - 1;
+            long waitNanos = hasNext && config.isHedgeEnabled()
+                    ? Math.min(hedgeDelay(delegate).toNanos(), deadline - System.nanoTime())
+                    : deadline - System.nanoTime();
+            Boolean result = awaitAny(inFlight, waitNanos);
+            if (Boolean.TRUE.equals(result)) {
+                return true;
+            }
+            if (result == null && hasNext && config.isHedgeEnabled() && System.nanoTime() < deadline) {
+                logger.info("SMS provider {} exceeded hedge budget, also sending via next provider",
+                        delegate.provider.getProviderName());
+            }
+            // 失败或超过对冲预算：继续下一个服务商（仍在进行的调用保留在 inFlight 中）
+        }
+        // 所有服务商都已尝试，等待仍在进行的调用
+        return Boolean.TRUE.equals(awaitAny(inFlight, deadline - System.nanoTime()));
+    }
+
+    @Override
+    public boolean sendNotice(List<String> phoneNumbers, String content) {
+        for (Delegate delegate : rank()) {
+            if (!delegate.breaker.tryAcquire(System.currentTimeMillis())) {
+                continue;
+            }
+            boolean sent;
+            try {
+                sent = delegate.provider.sendNotice(phoneNumbers, content);
+            } catch (RuntimeException e) {
+                logger.error("SMS provider {} threw while sending notice",
+                        delegate.provider.getProviderName(), e);
+                sent = false;
+            }
+            if (sent) {
+                delegate.breaker.recordSuccess();
+                return true;
+            }
+            delegate.breaker.recordFailure(System.currentTimeMillis());
+        }
+        return false;
+    }
+
+    /**
+     * 取各服务商上限的最小值，失败切换时同一批号码可以直接发给任一服务商
+     */
+    @Override
+    public int getMaxBatchSize() {
+        return delegates.stream().mapToInt(d -> d.provider.getMaxBatchSize()).min().orElse(1);
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegates.stream()
+                .map(d -> d.provider.getProviderName())
+                .collect(Collectors.joining(",", "Composite[", "]"));
+    }
+
+    /**
+     * 按预期耗时排序，熔断中的服务商排在最后
+     */
+    List<Delegate> rank() {
+        long now = System.currentTimeMillis();
+        List<Delegate> ranked = new ArrayList<>(delegates);
+        ranked.sort(Comparator
+                .comparing((Delegate d) -> d.breaker.getState(now) == CircuitBreaker.State.OPEN)
+                .thenComparingDouble(d -> score(d, now))
+                .thenComparingInt(d -> d.order));
+        return ranked;
+    }
+
+    private double score(Delegate delegate, long now) {
+        ProviderStats.Snapshot snapshot = delegate.stats.snapshot(now);
+        if (snapshot.samples < config.getMinSamples()) {
+            return config.getExpectedLatency().toMillis();
+        }
+        return Math.max(snapshot.p95Millis, 1) / Math.max(1.0 - snapshot.errorRate, 0.01);
+    }
+
+    private Duration hedgeDelay(Delegate delegate) {
+        Duration budget = config.getHedgeBudget();
+        if (budget.isZero()) {
+            ProviderStats.Snapshot snapshot = delegate.stats.snapshot(System.currentTimeMillis());
+            budget = snapshot.samples >= config.getMinSamples()
+                    ? Duration.ofMillis(snapshot.p95Millis)
+                    : config.getExpectedLatency();
+        }
+        return budget.compareTo(config.getMinHedgeDelay()) < 0 ? config.getMinHedgeDelay() : budget;
+    }
+
+    private boolean call(Delegate delegate, String phoneNumber, String code) {
+        long start = System.nanoTime();
+        boolean sent;
+        try {
+            sent = delegate.provider.sendVerificationCode(phoneNumber, code);
+        } catch (RuntimeException e) {
+            logger.error("SMS provider {} threw while sending to {}",
+                    delegate.provider.getProviderName(), phoneNumber, e);
+            sent = false;
+        }
+        long now = System.currentTimeMillis();
+        delegate.stats.record(now, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), sent);
+        if (sent) {
+            delegate.breaker.recordSuccess();
+        } else {
+            delegate.breaker.recordFailure(now);
+        }
+        return sent;
+    }
+
+    /**
+     * 等待任一调用成功
+     *
+     * @return 有调用成功时返回 true；全部完成且都失败时返回 false；超时仍有调用未完成时返回 null
+     */
+    private Boolean awaitAny(List<CompletableFuture<Boolean>> futures, long timeoutNanos) {
+        CompletableFuture<Boolean> anySuccess = new CompletableFuture<>();
+        for (CompletableFuture<Boolean> future : futures) {
+            future.thenAccept(sent -> {
+                if (Boolean.TRUE.equals(sent)) {
+                    anySuccess.complete(true);
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                .whenComplete((ignored, error) -> anySuccess.complete(false));
+        try {
+            return anySuccess.get(Math.max(timeoutNanos, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    static final class Delegate {
+
+        final int order;
+        final SmsProvider provider;
+        final ProviderStats stats;
+        final CircuitBreaker breaker;
+
+        Delegate(int order, SmsProvider provider, ProviderStats stats, CircuitBreaker breaker) {
+            this.order = order;
+            this.provider = provider;
+            this.stats = stats;
+            this.breaker = breaker;
+        }
+    }
+}
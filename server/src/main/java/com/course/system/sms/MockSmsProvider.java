@@ -1,8 +1,12 @@
 package com.course.system.sms;
 
+import com.course.system.config.SmsConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Mock SMS Provider
  * 模拟短信发送服务（开发测试用）
@@ -11,13 +15,46 @@ import org.slf4j.LoggerFactory;
  * 适用于本地开发和测试环境
  *
  * 生产环境请切换到 aliyun 或 tencent 模式
+ *
+ * 可通过 sms.mock.* 注入延迟与随机失败，在本地压测发送队列、重试与熔断
  */
 public class MockSmsProvider implements SmsProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(MockSmsProvider.class);
 
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final String name;
+
+    private final SmsConfig.MockConfig config;
+
+    public MockSmsProvider() {
+        this(new SmsConfig.MockConfig());
+    }
+
+    public MockSmsProvider(SmsConfig.MockConfig config) {
+        this("Mock (Development)", config);
+    }
+
+    /**
+     * 具名模拟服务商，用于演练多服务商切换
+     */
+    public MockSmsProvider(String name, SmsConfig.MockConfig config) {
+        this.name = name;
+        this.config = config;
+    }
+
     @Override
     public boolean sendVerificationCode(String phoneNumber, String code) {
+        if (!simulateNetwork()) {
+            logger.warn("[MOCK SMS] {} injected failure sending to {}", name, phoneNumber);
+            return false;
+        }
+        if (!config.isPrintToConsole()) {
+            logger.info("[MOCK SMS] {} sent code {} to {}", name, code, phoneNumber);
+            return true;
+        }
+
         // 在控制台打印验证码信息
         System.out.println();
         System.out.println("╔════════════════════════════════════════════════════════════╗");
@@ -36,6 +73,43 @@ public class MockSmsProvider implements SmsProvider {
         return true;
     }
 
+    @Override
+    public boolean sendNotice(List<String> phoneNumbers, String content) {
+        if (!simulateNetwork()) {
+            logger.warn("[MOCK SMS] {} injected failure sending notice to {} recipients", name, phoneNumbers.size());
+            return false;
+        }
+        logger.info("[MOCK SMS] {} sent notice to {} recipients: {}", name, phoneNumbers.size(), content);
+        return true;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    /**
+     * 模拟服务商的响应延迟与失败
+     *
+     * @return 本次调用是否成功
+     */
+    private boolean simulateNetwork() {
+        long latency = config.getLatency().toMillis();
+        long jitter = config.getLatencyJitter().toMillis();
+        if (jitter > 0) {
+            latency += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return ThreadLocalRandom.current().nextDouble() >= config.getFailureRate();
+    }
+
     private String padRight(String s, int n) {
         // 处理中文字符宽度
         int actualLength = 0;
@@ -51,6 +125,6 @@ public class MockSmsProvider implements SmsProvider {
 
     @Override
     public String getProviderName() {
-        return "Mock (Development)";
+        return name;
     }
 }
@@ -0,0 +1,66 @@
+package com.course.system.sms;
+
+import java.util.Arrays;
+
+/**
+ * 短信服务商的滚动统计：最近若干次调用的耗时与成败，超出时间窗口的样本不计入
+ */
+class ProviderStats {
+
+    private final long windowMillis;
+
+    private final long[] timestamps;
+    private final long[] latencies;
+    private final boolean[] successes;
+
+    private int next;
+    private int size;
+
+    ProviderStats(int capacity, long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.timestamps = new long[capacity];
+        this.latencies = new long[capacity];
+        this.successes = new boolean[capacity];
+    }
+
+    synchronized void record(long now, long latencyMillis, boolean success) {
+        timestamps[next] = now;
+        latencies[next] = latencyMillis;
+        successes[next] = success;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    synchronized Snapshot snapshot(long now) {
+        long[] recent = new long[size];
+        int count = 0;
+        int failures = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - timestamps[i] <= windowMillis) {
+                recent[count++] = latencies[i];
+                if (!successes[i]) {
+                    failures++;
+                }
+            }
+        }
+        if (count == 0) {
+            return new Snapshot(0, 0, 0);
+        }
+        Arrays.sort(recent, 0, count);
+        long p95 = recent[Math.min(count - 1, (int) Math.ceil(count * 0.95) - 1)];
+        return new Snapshot(count, (double) failures / count, p95);
+    }
+
+    static final class Snapshot {
+
+        final int samples;
+        final double errorRate;
+        final long p95Millis;
+
+        Snapshot(int samples, double errorRate, long p95Millis) {
+            this.samples = samples;
+            this.errorRate = errorRate;
+            this.p95Millis = p95Millis;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.course.system.sms;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁滑动窗口计数器
+ *
+ * 窗口被划分为固定数量的桶，每个桶是一个 long：高位为桶的时间序号，低位为计数，
+ * 通过 CAS 更新，过期的桶在被复用时自动清零。窗口边界的误差不超过一个桶的时长。
+ * 先计数再检查总数，超限时撤销本次计数，并发请求不会超过上限。
+ */
+class SlidingWindowCounter {
+
+    private static final int BUCKETS = 10;
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final int limit;
+    private final AtomicLongArray slots = new AtomicLongArray(BUCKETS);
+
+    SlidingWindowCounter(long windowMillis, int limit) {
+        this.bucketMillis = Math.max(10, windowMillis / BUCKETS);
+        this.limit = limit;
+    }
+
+    /**
+     * 尝试计入一次
+     *
+     * @return 成功时返回本次计数所在的桶序号（用于撤销），超限时返回 -1
+     */
+    long tryAcquire(long now) {
+        long epoch = now / bucketMillis;
+        int index = (int) (epoch % BUCKETS);
+        while (true) {
+            long value = slots.get(index);
+            long updated;
+            if (value >>> COUNT_BITS == epoch) {
+                if ((value & COUNT_MASK) == COUNT_MASK) {
+                    return -1;
+                }
+                updated = value + 1;
+            } else {
+                updated = (epoch << COUNT_BITS) | 1;
+            }
+            if (slots.compareAndSet(index, value, updated)) {
+                break;
+            }
+        }
+        if (count(epoch) > limit) {
+            release(epoch);
+            return -1;
+        }
+        return epoch;
+    }
+
+    /**
+     * 撤销 tryAcquire 计入的一次（桶已过期时忽略）
+     */
+    void release(long epoch) {
+        int index = (int) (epoch % BUCKETS);
+        while (true) {
+            long value = slots.get(index);
+            if (value >>> COUNT_BITS != epoch || (value & COUNT_MASK) == 0) {
+                return;
+            }
+            if (slots.compareAndSet(index, value, value - 1)) {
+                return;
+            }
+        }
+    }
+
+    private long count(long epoch) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long value = slots.get(i);
+            long bucketEpoch = value >>> COUNT_BITS;
+            if (bucketEpoch > epoch - BUCKETS && bucketEpoch <= epoch) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,229 @@
+package com.course.system.sms;
+
+import com.course.system.config.SmsConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 短信异步发送队列
+ *
+ * 验证码写入数据库后提交到有界队列即返回，由固定数量的发送线程调用短信服务商，
+ * 服务商响应慢时不会占用 Tomcat 请求线程。队列已满时 submit 返回 false，由调用方返回失败。
+ *
+ * 发送失败时按指数退避加随机抖动 (full jitter) 重试，超过最大次数或截止时间后放弃并执行失败回调。
+ * 每个服务商有独立的熔断器：连续失败达到阈值后暂停调用，到期后放行一次试探请求。
+ * 多服务商组合 (CompositeSmsProvider) 在内部按服务商熔断，这里不再在外层另加熔断器。
+ *
+ * 指标：sms.dispatch.queue（排队数）、sms.dispatch（按 outcome 统计）、
+ * sms.provider.send（服务商调用耗时，按 provider、result 区分）、sms.circuit.open（熔断状态）。
+ */
+@Component
+public class SmsDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmsDispatcher.class);
+
+    @Autowired
+    private SmsConfig smsConfig;
+
+    @Autowired
+    private SmsProviderFactory smsProviderFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SmsConfig.DispatchConfig config;
+
+    private ThreadPoolExecutor executor;
+
+    private ScheduledExecutorService retryScheduler;
+
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        config = smsConfig.getDispatch();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "sms-dispatch-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sms-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("sms.dispatch.queue", executor, e -> e.getQueue().size())
+                .description("SMS messages waiting for a dispatch thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("{} SMS messages were not sent before shutdown", executor.shutdownNow().size());
+        }
+    }
+
+    /**
+     * 提交一条验证码短信
+     *
+     * @param onFailure 最终发送失败（重试耗尽或超过截止时间）时在发送线程中执行
+     * @return 已入队时返回 true；队列已满时返回 false
+     */
+    public boolean submit(String phoneNumber, String code, Runnable onFailure) {
+        Delivery delivery = new Delivery(phoneNumber, code, onFailure,
+                System.currentTimeMillis() + config.getDeadline().toMillis());
+        try {
+            executor.execute(() -> attempt(delivery));
+            return true;
+        } catch (RejectedExecutionException e) {
+            count("rejected");
+            return false;
+        }
+    }
+
+    private void attempt(Delivery delivery) {
+        long now = System.currentTimeMillis();
+        if (now > delivery.deadline) {
+            fail(delivery, "deadline exceeded");
+            return;
+        }
+
+        SmsProvider provider = smsProviderFactory.getProvider();
+        CircuitBreaker breaker = provider instanceof CompositeSmsProvider ? null : breakerFor(provider.getProviderName());
+        if (breaker != null && !breaker.tryAcquire(now)) {
+            // 熔断期间不计入尝试次数，等到可以试探时再发送
+            scheduleRetry(delivery, breaker.remainingOpenMillis(now));
+            return;
+        }
+
+        delivery.attempts++;
+        boolean sent;
+        long start = System.nanoTime();
+        try {
+            sent = provider.sendVerificationCode(delivery.phoneNumber, delivery.code);
+        } catch (RuntimeException e) {
+            logger.error("SMS provider {} threw while sending to {}", provider.getProviderName(), delivery.phoneNumber, e);
+            sent = false;
+        }
+        Timer.builder("sms.provider.send")
+                .tag("provider", provider.getProviderName())
+                .tag("result", sent ? "success" : "failure")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (sent) {
+            if (breaker != null) {
+                breaker.recordSuccess();
+            }
+            count("sent");
+            return;
+        }
+        if (breaker != null) {
+            breaker.recordFailure(System.currentTimeMillis());
+        }
+        if (delivery.attempts >= config.getMaxAttempts()) {
+            fail(delivery, "gave up after " + delivery.attempts + " attempts");
+            return;
+        }
+        scheduleRetry(delivery, 0);
+    }
+
+    /**
+     * 按指数退避加随机抖动安排重试，等待时间至少为 minDelayMillis
+     */
+    private void scheduleRetry(Delivery delivery, long minDelayMillis) {
+        int exponent = Math.min(Math.max(delivery.attempts - 1, 0), 20);
+        long cap = Math.min(config.getMaxBackoff().toMillis(), config.getInitialBackoff().toMillis() << exponent);
+        long delay = Math.max(minDelayMillis, ThreadLocalRandom.current().nextLong(cap + 1));
+        if (System.currentTimeMillis() + delay > delivery.deadline) {
+            fail(delivery, "deadline exceeded");
+            return;
+        }
+        count("retried");
+        try {
+            retryScheduler.schedule(() -> {
+                try {
+                    executor.execute(() -> attempt(delivery));
+                } catch (RejectedExecutionException e) {
+                    fail(delivery, "queue full on retry");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 正在关闭
+            fail(delivery, "dispatcher shutting down");
+        }
+    }
+
+    private void fail(Delivery delivery, String reason) {
+        count("failed");
+        logger.error("Failed to send SMS to {}: {}", delivery.phoneNumber, reason);
+        try {
+            delivery.onFailure.run();
+        } catch (RuntimeException e) {
+            logger.error("SMS failure callback failed for {}", delivery.phoneNumber, e);
+        }
+    }
+
+    private CircuitBreaker breakerFor(String providerName) {
+        return breakers.computeIfAbsent(providerName, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(config.getBreakerFailureThreshold(),
+                    config.getBreakerOpenDuration().toMillis());
+            Gauge.builder("sms.circuit.open", breaker,
+                            b -> b.getState(System.currentTimeMillis()) == CircuitBreaker.State.CLOSED ? 0 : 1)
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("sms.dispatch", "outcome", outcome).increment();
+    }
+
+    /**
+     * 一条待发送的短信
+     */
+    private static final class Delivery {
+
+        final String phoneNumber;
+        final String code;
+        final Runnable onFailure;
+        final long deadline;
+
+        /**
+         * 已调用服务商的次数，只在发送线程中修改（重试经由线程池提交，保证可见性）
+         */
+        int attempts;
+
+        Delivery(String phoneNumber, String code, Runnable onFailure, long deadline) {
+            this.phoneNumber = phoneNumber;
+            this.code = code;
+            this.onFailure = onFailure;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.course.system.sms;
 
+import java.util.List;
+
 /**
  * SMS Provider Interface
  * 短信发送服务接口
@@ -15,6 +17,20 @@ public interface SmsProvider {
      */
     boolean sendVerificationCode(String phoneNumber, String code);
 
+    /**
+     * 使用通知模板向多个号码发送同一条短信（课程群发）
+     *
+     * @param phoneNumbers 手机号码，数量不超过 getMaxBatchSize()
+     * @param content      通知内容
+     * @return 服务商是否接受本批发送
+     */
+    boolean sendNotice(List<String> phoneNumbers, String content);
+
+    /**
+     * 单次批量发送的号码数上限
+     */
+    int getMaxBatchSize();
+
     /**
      * 获取提供商名称
      */
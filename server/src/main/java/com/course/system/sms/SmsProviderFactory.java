@@ -1,18 +1,21 @@
 package com.course.system.sms;
 
 import com.course.system.config.SmsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * SMS Provider Factory
  * 短信服务提供者工厂
  *
- * 根据配置自动选择短信服务提供商
+ * 根据配置自动选择短信服务提供商；配置多个时 (如 aliyun,tencent) 组合为 CompositeSmsProvider
  */
 @Component
 public class SmsProviderFactory {
@@ -22,31 +25,55 @@ public class SmsProviderFactory {
     @Autowired
     private SmsConfig smsConfig;
 
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     private SmsProvider provider;
 
     @PostConstruct
     public void init() {
-        String providerName = smsConfig.getProvider().toLowerCase();
+        List<SmsProvider> providers = new ArrayList<>();
+        for (String name : smsConfig.getProvider().split(",")) {
+            if (!name.isBlank()) {
+                providers.add(create(name.trim().toLowerCase()));
+            }
+        }
+        if (providers.isEmpty()) {
+            providers.add(create("mock"));
+        }
+
+        if (providers.size() == 1) {
+            provider = providers.get(0);
+        } else {
+            provider = new CompositeSmsProvider(providers, smsConfig.getFailover(), smsConfig.getDispatch(),
+                    smsConfig.providerExecutor(providers.size()), meterRegistry);
+        }
+        logger.info("Using SMS Provider: {}", provider.getProviderName());
 
-        switch (providerName) {
+        if (providers.stream().anyMatch(p -> p instanceof MockSmsProvider)) {
+            logger.warn("==============================================");
+            logger.warn("WARNING: SMS is in MOCK mode!");
+            logger.warn("Verification codes will only be printed to console.");
+            logger.warn("For production, set sms.provider=aliyun or sms.provider=tencent");
+            logger.warn("==============================================");
+        }
+    }
+
+    private SmsProvider create(String name) {
+        if (name.startsWith("mock:")) {
+            // 多个模拟服务商，用于本地验证多服务商切换
+            String instance = name.substring("mock:".length());
+            return new MockSmsProvider("Mock-" + instance,
+                    smsConfig.getMockInstances().getOrDefault(instance, smsConfig.getMock()));
+        }
+        switch (name) {
             case "aliyun":
-                provider = new AliyunSmsProvider(smsConfig.getAliyun());
-                logger.info("Using Aliyun SMS Provider");
-                break;
+                return new AliyunSmsProvider(smsConfig.getAliyun());
             case "tencent":
-                provider = new TencentSmsProvider(smsConfig.getTencent());
-                logger.info("Using Tencent Cloud SMS Provider");
-                break;
+                return new TencentSmsProvider(smsConfig.getTencent());
             case "mock":
             default:
-                provider = new MockSmsProvider();
-                logger.info("Using Mock SMS Provider (Development Mode)");
-                logger.warn("==============================================");
-                logger.warn("WARNING: SMS is in MOCK mode!");
-                logger.warn("Verification codes will only be printed to console.");
-                logger.warn("For production, set sms.provider=aliyun or sms.provider=tencent");
-                logger.warn("==============================================");
-                break;
+                return new MockSmsProvider(smsConfig.getMock());
         }
     }
 
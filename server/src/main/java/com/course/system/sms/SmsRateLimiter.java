@@ -0,0 +1,150 @@
+package com.course.system.sms;
+
+import com.course.system.config.SmsConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 短信发送频率限制（内存滑动窗口）
+ *
+ * 依次检查 手机号+类型、客户端 IP、全局 三个维度，每个维度可配置多个窗口 (sms.rate-limit.*)。
+ * 任一窗口超限即拒绝，并撤销前面已计入的次数，被拒绝的请求不占用名额。
+ * 计数器按键保存在 Caffeine 缓存中，超过该维度最长窗口未访问即过期，键数量有上限，
+ * 机器人刷接口时不会访问数据库，也不会无限占用内存。
+ *
+ * 计数只在本进程内有效：启动后的一个窗口内（isWarm 为 false）由 SmsServiceImpl 再用数据库记录兜底检查。
+ */
+@Component
+public class SmsRateLimiter {
+
+    @Autowired
+    private SmsConfig smsConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Dimension phone;
+
+    private Dimension ip;
+
+    private SlidingWindowCounter[] global;
+
+    private long warmAt;
+
+    @PostConstruct
+    public void init() {
+        SmsConfig.RateLimitConfig config = smsConfig.getRateLimit();
+        phone = new Dimension("phone", config.getPhone(), config.getMaxKeys());
+        ip = new Dimension("ip", config.getIp(), config.getMaxKeys());
+        global = counters(config.getGlobal());
+        warmAt = System.currentTimeMillis() + longestWindow(config.getPhone()).toMillis();
+    }
+
+    public boolean isEnabled() {
+        return smsConfig.getRateLimit().isEnabled();
+    }
+
+    /**
+     * 本进程的计数是否已覆盖手机号维度的最长窗口（否则刚重启时可能漏掉重启前的发送记录）
+     */
+    public boolean isWarm() {
+        return System.currentTimeMillis() >= warmAt;
+    }
+
+    /**
+     * 尝试计入一次发送
+     *
+     * @param clientIp 客户端 IP，未知时为 null（跳过 IP 维度）
+     * @return 未超限时返回 true
+     */
+    public boolean tryAcquire(String phoneNumber, String type, String clientIp) {
+        long now = System.currentTimeMillis();
+        SlidingWindowCounter[] phoneCounters = phone.counters(phoneNumber + ":" + type);
+        long[] phoneEpochs = acquire(phoneCounters, now);
+        if (phoneEpochs == null) {
+            phone.rejected.increment();
+            return false;
+        }
+        SlidingWindowCounter[] ipCounters = clientIp != null ? ip.counters(clientIp) : new SlidingWindowCounter[0];
+        long[] ipEpochs = acquire(ipCounters, now);
+        if (ipEpochs == null) {
+            release(phoneCounters, phoneEpochs);
+            ip.rejected.increment();
+            return false;
+        }
+        if (acquire(global, now) == null) {
+            release(phoneCounters, phoneEpochs);
+            release(ipCounters, ipEpochs);
+            meterRegistry.counter("sms.rate-limited", "dimension", "global").increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 依次计入所有窗口，任一超限时撤销已计入的部分
+     */
+    private long[] acquire(SlidingWindowCounter[] counters, long now) {
+        long[] epochs = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            epochs[i] = counters[i].tryAcquire(now);
+            if (epochs[i] < 0) {
+                for (int j = 0; j < i; j++) {
+                    counters[j].release(epochs[j]);
+                }
+                return null;
+            }
+        }
+        return epochs;
+    }
+
+    private void release(SlidingWindowCounter[] counters, long[] epochs) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i].release(epochs[i]);
+        }
+    }
+
+    private static SlidingWindowCounter[] counters(List<SmsConfig.Rule> rules) {
+        return rules.stream()
+                .map(rule -> new SlidingWindowCounter(rule.getWindow().toMillis(), rule.getLimit()))
+                .toArray(SlidingWindowCounter[]::new);
+    }
+
+    private static Duration longestWindow(List<SmsConfig.Rule> rules) {
+        return rules.stream()
+                .map(SmsConfig.Rule::getWindow)
+                .max(Duration::compareTo)
+                .orElse(Duration.ZERO);
+    }
+
+    /**
+     * 按键限流的一个维度
+     */
+    private class Dimension {
+
+        final List<SmsConfig.Rule> rules;
+        final Cache<String, SlidingWindowCounter[]> keys;
+        final Counter rejected;
+
+        Dimension(String name, List<SmsConfig.Rule> rules, long maxKeys) {
+            this.rules = rules;
+            this.keys = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(longestWindow(rules))
+                    .build();
+            this.rejected = meterRegistry.counter("sms.rate-limited", "dimension", name);
+        }
+
+        SlidingWindowCounter[] counters(String key) {
+            return keys.get(key, k -> SmsRateLimiter.counters(rules));
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.course.system.config.SmsConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * Tencent Cloud SMS Provider
  * 腾讯云短信服务实现
@@ -25,6 +27,11 @@ public class TencentSmsProvider implements SmsProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(TencentSmsProvider.class);
 
+    /**
+     * SendSms 单次最多 200 个号码
+     */
+    private static final int MAX_BATCH_SIZE = 200;
+
     private final SmsConfig.TencentConfig config;
 
     public TencentSmsProvider(SmsConfig.TencentConfig config) {
@@ -43,6 +50,18 @@ public class TencentSmsProvider implements SmsProvider {
         return true;
     }
 
+    @Override
+    public boolean sendNotice(List<String> phoneNumbers, String content) {
+        // 模拟模式 - SDK未启用
+        logger.info("[TENCENT-MOCK] Simulating notice to {} recipients: {}", phoneNumbers.size(), content);
+        return true;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
     @Override
     public String getProviderName() {
         return "Tencent Cloud (Mock Mode)";
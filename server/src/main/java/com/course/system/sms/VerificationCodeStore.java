@@ -0,0 +1,164 @@
+package com.course.system.sms;
+
+import com.course.system.config.SmsConfig;
+import com.course.system.entity.SmsVerificationCode;
+import com.course.system.mapper.SmsVerificationCodeMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 验证码存储
+ *
+ * database 模式（默认）：验证码保存在 sms_verification_codes 表中，多节点共享。
+ * memory 模式：每个 手机号+类型 只保存最新一条验证码，到期 (expiresAt) 后自动失效，
+ * 校验与消费都在内存中完成；writeThrough 开启时仍写入数据库供审计，但不再读取。
+ * 两种模式下验证码都只能使用一次：并发校验同一验证码时只有一个请求成功。
+ *
+ * 过期记录由定时任务分批删除，每批一个短事务，不会长时间锁表。
+ */
+@Component
+public class VerificationCodeStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificationCodeStore.class);
+
+    @Autowired
+    private SmsConfig smsConfig;
+
+    @Autowired
+    private SmsVerificationCodeMapper codeMapper;
+
+    private Cache<String, SmsVerificationCode> codes;
+
+    @PostConstruct
+    public void init() {
+        if (!isMemoryMode()) {
+            return;
+        }
+        codes = Caffeine.newBuilder()
+                .maximumSize(smsConfig.getCodeStore().getMaxEntries())
+                .expireAfter(new Expiry<String, SmsVerificationCode>() {
+                    @Override
+                    public long expireAfterCreate(String key, SmsVerificationCode value, long currentTime) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, SmsVerificationCode value,
+                                                  long currentTime, long currentDuration) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, SmsVerificationCode value,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        logger.info("Verification codes are kept in memory (write-through: {})",
+                smsConfig.getCodeStore().isWriteThrough());
+    }
+
+    /**
+     * 保存新验证码，同一手机号同一类型的旧验证码随之失效（memory 模式）
+     *
+     * @return 保存成功时返回 true
+     */
+    public boolean save(SmsVerificationCode code) {
+        if (!isMemoryMode()) {
+            return codeMapper.insert(code) > 0;
+        }
+        if (smsConfig.getCodeStore().isWriteThrough() && codeMapper.insert(code) <= 0) {
+            return false;
+        }
+        codes.put(key(code.getPhoneNumber(), code.getType()), code);
+        return true;
+    }
+
+    /**
+     * 检查验证码是否正确，不消费（调用方随后仍需 consume）
+     */
+    public boolean matches(String phoneNumber, String type, String code) {
+        SmsVerificationCode latest = isMemoryMode()
+                ? codes.getIfPresent(key(phoneNumber, type))
+                : codeMapper.findLatestValid(phoneNumber, type);
+        return latest != null && latest.getCode().equals(code);
+    }
+
+    /**
+     * 校验并消费验证码
+     *
+     * @return 验证码正确、未过期且未被使用时返回 true，此后同一验证码不能再次使用
+     */
+    public boolean consume(String phoneNumber, String type, String code) {
+        if (!isMemoryMode()) {
+            SmsVerificationCode latest = codeMapper.findLatestValid(phoneNumber, type);
+            // markAsUsed 只更新未使用的记录，并发校验时只有一个请求返回 1
+            return latest != null && latest.getCode().equals(code) && codeMapper.markAsUsed(latest.getId()) > 0;
+        }
+        String key = key(phoneNumber, type);
+        SmsVerificationCode latest = codes.getIfPresent(key);
+        if (latest == null || !latest.getCode().equals(code) || !codes.asMap().remove(key, latest)) {
+            return false;
+        }
+        if (latest.getId() != null) {
+            codeMapper.markAsUsed(latest.getId());
+        }
+        return true;
+    }
+
+    /**
+     * 删除一条验证码（短信未能发出时调用）
+     */
+    public void remove(SmsVerificationCode code) {
+        if (isMemoryMode()) {
+            codes.asMap().remove(key(code.getPhoneNumber(), code.getType()), code);
+        }
+        if (code.getId() != null) {
+            codeMapper.deleteById(code.getId());
+        }
+    }
+
+    /**
+     * 分批删除超过保留时间的过期记录
+     */
+    @Scheduled(cron = "${sms.code-store.purge-cron:0 */10 * * * ?}")
+    public void purgeExpired() {
+        SmsConfig.CodeStoreConfig config = smsConfig.getCodeStore();
+        Date before = new Date(System.currentTimeMillis() - config.getRetention().toMillis());
+        int total = 0;
+        for (int batch = 0; batch < config.getPurgeMaxBatches(); batch++) {
+            int deleted = codeMapper.deleteExpired(before, config.getPurgeBatchSize());
+            total += deleted;
+            if (deleted < config.getPurgeBatchSize()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.info("Purged {} expired verification codes", total);
+        }
+    }
+
+    private boolean isMemoryMode() {
+        return "memory".equalsIgnoreCase(smsConfig.getCodeStore().getMode());
+    }
+
+    private static String key(String phoneNumber, String type) {
+        return phoneNumber + ":" + type;
+    }
+
+    private static long remainingNanos(SmsVerificationCode code) {
+        long remainingMillis = code.getExpiresAt().getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+    }
+}
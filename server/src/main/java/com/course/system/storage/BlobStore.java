@@ -0,0 +1,205 @@
+package com.course.system.storage;
+
+import com.course.system.entity.ResourceBlob;
+import com.course.system.mapper.ResourceBlobMapper;
+import org.apache.commons.io.function.IOSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内容寻址的资源存储
+ *
+ * 文件按 SHA-256 摘要存放在存储后端的 blobs/ab/cd/{hash}，相同内容只保存一份。
+ * 引用计数记录在 resource_blobs 表中，与 course_resources 记录一一对应：
+ * 每新增一条资源记录引用计数加一，删除时减一，归零后才删除实际文件。
+ *
+ * 同一摘要的获取/释放操作在本进程内通过分段锁串行化；多个节点共用同一存储（如同一 S3 存储桶）时，
+ * 由 resource_blobs 的行锁隔离：获取时先在事务中增加引用计数（锁定该行），再检查文件是否存在，
+ * 不存在则重新写入；释放时 SELECT ... FOR UPDATE 锁定该行，引用归零后在同一事务内删除记录与文件。
+ * 因此其它节点不会在文件被删除的同时引用它，也不会留下指向已删除文件的记录。
+ * 已移入冷存储 (ColdStorage) 的内容块在被再次引用时还原。
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private ResourceBlobMapper blobMapper;
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Autowired
+    private ColdStorage coldStorage;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    private Path tempDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        tempDir = Paths.get(uploadDir, "tmp");
+        Files.createDirectories(tempDir);
+    }
+
+    /**
+     * 在临时目录中创建一个空文件，用于接收上传内容
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(tempDir, "upload-", ".tmp");
+    }
+
+    /**
+     * 以临时文件的内容获取一个引用
+     * 内容已存在时直接增加引用计数并丢弃临时文件；否则将临时文件移动到存储位置
+     *
+     * @param contentHash 临时文件内容的 SHA-256 摘要
+     * @param size        临时文件大小
+     * @param tempFile    已写好的临时文件（调用后不再属于调用方）
+     * @return 内容块信息
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ResourceBlob acquire(String contentHash, long size, Path tempFile) throws IOException {
+        ReentrantLock lock = lockFor(contentHash);
+        lock.lock();
+        try {
+            ResourceStorage storage = storageFactory.getStorage();
+            String key = StorageKeys.blobKey(contentHash);
+
+            // 先增加引用计数并持有行锁，其它节点的释放在本事务提交前无法删除文件
+            ResourceBlob blob = new ResourceBlob();
+            blob.setContentHash(contentHash);
+            blob.setFilePath(key);
+            blob.setFileSize(size);
+            blobMapper.insertOrIncrement(blob);
+
+            if (storage.exists(key)) {
+                logger.info("Deduplicated upload for blob {}", contentHash);
+                Files.deleteIfExists(tempFile);
+            } else {
+                storage.put(key, tempFile, null);
+                // 内容已在冷存储中时以新上传的文件为准
+                coldStorage.delete(key);
+            }
+            return blob;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 仅凭摘要获取已有内容的引用（秒传），不传输任何文件内容
+     *
+     * @return 内容已存在且大小一致时返回内容块信息，否则返回 null
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ResourceBlob acquireExisting(String contentHash, long size) throws IOException {
+        ReentrantLock lock = lockFor(contentHash);
+        lock.lock();
+        try {
+            // 锁定记录后再确认文件存在（或从冷存储还原）
+            ResourceBlob blob = blobMapper.selectByHashForUpdate(contentHash);
+            if (blob == null || blob.getFileSize() == null || blob.getFileSize() != size
+                    || !coldStorage.restore(StorageKeys.blobKey(contentHash))) {
+                return null;
+            }
+            blobMapper.incrementRefCount(contentHash);
+            return blob;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放一个引用，引用计数归零时删除文件
+     *
+     * @return 该摘要由本存储管理时返回 true；旧版按课程目录存放的文件返回 false
+     */
+    @Transactional
+    public boolean release(String contentHash) {
+        ReentrantLock lock = lockFor(contentHash);
+        lock.lock();
+        try {
+            // 锁定记录直到事务结束：其它节点的 acquire 在此期间等待，提交后会发现文件已删除并重新写入
+            ResourceBlob blob = blobMapper.selectByHashForUpdate(contentHash);
+            if (blob == null) {
+                return false;
+            }
+            blobMapper.decrementRefCount(contentHash);
+            if (blobMapper.deleteIfUnreferenced(contentHash) > 0) {
+                try {
+                    String key = StorageKeys.blobKey(contentHash);
+                    storageFactory.getStorage().delete(key);
+                    storageFactory.getStorage().delete(StorageKeys.thumbnailKey(key));
+                    coldStorage.delete(key);
+                    logger.info("Deleted unreferenced blob {}", contentHash);
+                } catch (IOException e) {
+                    logger.error("Failed to delete blob: {}", contentHash, e);
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除没有引用记录的内容块文件（供孤儿文件回收使用）
+     *
+     * 在摘要锁内重新确认记录不存在，避免与同一内容的并发上传竞争
+     *
+     * @return 文件被删除时返回 true
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public boolean deleteOrphan(String contentHash, Path file) throws IOException {
+        ReentrantLock lock = lockFor(contentHash);
+        lock.lock();
+        try {
+            if (blobMapper.selectByHashForUpdate(contentHash) != null) {
+                return false;
+            }
+            return Files.deleteIfExists(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在摘要锁与记录行锁内执行操作，与本节点及其它节点对同一内容的获取/释放互斥
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public <T> T withLock(String contentHash, IOSupplier<T> action) throws IOException {
+        ReentrantLock lock = lockFor(contentHash);
+        lock.lock();
+        try {
+            blobMapper.selectByHashForUpdate(contentHash);
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String contentHash) {
+        return locks[Math.floorMod(contentHash.hashCode(), LOCK_STRIPES)];
+    }
+}
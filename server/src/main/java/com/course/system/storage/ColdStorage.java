@@ -0,0 +1,159 @@
+package com.course.system.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 冷存储
+ *
+ * 已结课课程的资源文件以 gzip 压缩后存放在单独的目录 (file.cold-storage.dir，可挂载到廉价磁盘)，
+ * 路径为 {冷存储目录}/{存储键}.gz。下载时发现文件不在存储中，会先从冷存储解压还原再发送，
+ * 对调用方透明。仅用于本地存储。
+ */
+@Component
+public class ColdStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdStorage.class);
+
+    private static final String SUFFIX = ".gz";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Value("${file.cold-storage.dir:./uploads-cold}")
+    private String coldDir;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${file.cold-storage.compression-level:6}")
+    private int compressionLevel;
+
+    private Path root;
+
+    private Path tempDir;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalStateException("Invalid cold storage compression level: " + compressionLevel);
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        root = Paths.get(coldDir).toAbsolutePath().normalize();
+        tempDir = Paths.get(uploadDir, "tmp");
+        Files.createDirectories(root);
+        Files.createDirectories(tempDir);
+    }
+
+    /**
+     * 将本地文件压缩写入冷存储（不删除源文件）
+     *
+     * @return 压缩后的大小
+     */
+    public long archive(String storageKey, Path source) throws IOException {
+        Path target = coldPath(storageKey);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "archive-", ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE) {
+                     {
+                         def.setLevel(compressionLevel);
+                     }
+                 }) {
+                in.transferTo(out);
+            }
+            // 保留原文件的修改时间，还原后仍可据此判断文件年龄
+            Files.setLastModifiedTime(temp, Files.getLastModifiedTime(source));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Files.size(target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 文件不在存储中时从冷存储还原
+     *
+     * @return 文件已在存储中或还原成功时返回 true；冷存储中也没有时返回 false
+     */
+    public boolean restore(String storageKey) throws IOException {
+        ResourceStorage storage = storageFactory.getStorage();
+        Path cold = coldPath(storageKey);
+        if (!Files.exists(cold)) {
+            return storage.exists(storageKey);
+        }
+
+        ReentrantLock lock = lockFor(storageKey);
+        lock.lock();
+        try {
+            if (storage.exists(storageKey)) {
+                return true;
+            }
+            Path temp = Files.createTempFile(tempDir, "restore-", ".tmp");
+            try {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(cold), BUFFER_SIZE)) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                // 还原的文件视为刚被使用，短期内不会再次移入冷存储
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(System.currentTimeMillis()));
+                storage.put(storageKey, temp, null);
+            } catch (NoSuchFileException e) {
+                // 冷存储文件已被删除（资源同时被删除）
+                return storage.exists(storageKey);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Files.deleteIfExists(cold);
+            logger.info("Restored {} from cold storage", storageKey);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除冷存储中的文件（资源删除时调用）
+     */
+    public void delete(String storageKey) throws IOException {
+        Files.deleteIfExists(coldPath(storageKey));
+    }
+
+    private Path coldPath(String storageKey) {
+        Path path = root.resolve(storageKey + SUFFIX).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + storageKey);
+        }
+        return path;
+    }
+
+    private ReentrantLock lockFor(String storageKey) {
+        return locks[Math.floorMod(storageKey.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,147 @@
+package com.course.system.storage;
+
+import com.course.system.entity.CourseResource;
+import com.course.system.mapper.CourseResourceMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 冷存储分层任务
+ *
+ * 定时将已结课课程 (course_status = Ended) 的资源文件压缩移入冷存储，释放上传目录所在磁盘的空间。
+ * 内容块被未结课课程引用时保留在原处；修改时间在 file.cold-storage.min-age 以内的文件
+ * （包括刚从冷存储还原的文件）跳过。下载时由 ColdStorage 透明还原。仅适用于本地存储。
+ *
+ * 候选资源按 resource_id 分页读取，每页读完即释放数据库连接，再逐个压缩，
+ * 压缩大文件期间不会长时间占用连接。
+ */
+@Component
+public class ColdStorageTierer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdStorageTierer.class);
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Autowired
+    private ColdStorage coldStorage;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private CourseResourceMapper resourceMapper;
+
+    @Value("${file.cold-storage.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.cold-storage.min-age:30d}")
+    private Duration minAge;
+
+    @Value("${file.cold-storage.page-size:200}")
+    private int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${file.cold-storage.cron:0 0 4 * * *}")
+    public void scheduledTier() {
+        if (enabled) {
+            tier();
+        }
+    }
+
+    /**
+     * 执行一次分层，已在运行时直接返回
+     */
+    public void tier() {
+        if (storageFactory.getStorage().localPath("") == null) {
+            logger.debug("Cold tiering skipped: storage is not local");
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Cold tiering already running");
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            long cutoff = started - minAge.toMillis();
+            long[] totals = new long[3];
+
+            String after = "";
+            List<CourseResource> page;
+            do {
+                page = resourceMapper.selectColdCandidatesPage(after, pageSize);
+                for (CourseResource resource : page) {
+                    try {
+                        long[] moved = moveToCold(resource, cutoff);
+                        if (moved != null) {
+                            totals[0]++;
+                            totals[1] += moved[0];
+                            totals[2] += moved[1];
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        logger.warn("Failed to move resource {} to cold storage", resource.getResourceId(), e);
+                    }
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getResourceId();
+                }
+            } while (page.size() >= pageSize);
+
+            logger.info("Cold tiering finished in {} ms: moved {} files, {} bytes compressed to {} bytes",
+                    System.currentTimeMillis() - started, totals[0], totals[1], totals[2]);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * @return 移动成功时返回 {原大小, 压缩后大小}，跳过时返回 null
+     */
+    private long[] moveToCold(CourseResource resource, long cutoff) throws IOException {
+        String key = StorageKeys.resourceKey(resource);
+        Path file = storageFactory.getStorage().localPath(key);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // 已在冷存储中
+            return null;
+        }
+        if (!attributes.isRegularFile() || attributes.lastModifiedTime().toMillis() >= cutoff) {
+            return null;
+        }
+
+        String hash = resource.getContentHash();
+        if (hash == null || !hash.equals(resource.getStoredFileName())) {
+            return archive(key, file, attributes.size());
+        }
+        // 内容块可能被多个课程共用：在摘要锁内确认没有未结课课程引用，避免与新上传竞争
+        return blobStore.withLock(hash, () -> {
+            if (resourceMapper.countActiveBlobReferences(hash) > 0 || !Files.exists(file)) {
+                return null;
+            }
+            return archive(key, file, attributes.size());
+        });
+    }
+
+    private long[] archive(String key, Path file, long size) throws IOException {
+        long compressed = coldStorage.archive(key, file);
+        Files.delete(file);
+        logger.debug("Moved {} to cold storage ({} -> {} bytes)", key, size, compressed);
+        return new long[]{size, compressed};
+    }
+}
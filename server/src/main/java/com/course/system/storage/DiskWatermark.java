@@ -0,0 +1,106 @@
+package com.course.system.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 上传目录磁盘水位
+ *
+ * 定时读取上传目录所在磁盘的容量与可用空间（请求线程不做系统调用），
+ * 写入后的使用率超过高水位或剩余空间低于下限时拒绝新的上传。
+ * 当前使用率通过 /actuator/metrics/file.disk.usage 查看。
+ */
+@Component
+public class DiskWatermark {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskWatermark.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    /**
+     * 高水位（使用率 0~1）
+     */
+    @Value("${file.disk.high-watermark:0.90}")
+    private double highWatermark;
+
+    /**
+     * 最少保留的可用空间
+     */
+    @Value("${file.disk.min-free:1GB}")
+    private DataSize minFree;
+
+    private FileStore fileStore;
+
+    private volatile long totalSpace;
+
+    private volatile long usableSpace;
+
+    private volatile boolean aboveWatermark;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(uploadDir);
+        Files.createDirectories(dir);
+        fileStore = Files.getFileStore(dir);
+        refresh();
+        Gauge.builder("file.disk.usage", this, DiskWatermark::usageRatio)
+                .description("Used fraction of the upload directory's file system")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${file.disk.check-interval-ms:5000}")
+    public void refresh() {
+        try {
+            totalSpace = fileStore.getTotalSpace();
+            usableSpace = fileStore.getUsableSpace();
+        } catch (IOException e) {
+            logger.warn("Failed to read disk space of {}", uploadDir, e);
+            return;
+        }
+        boolean above = !canAccept(0);
+        if (above != aboveWatermark) {
+            aboveWatermark = above;
+            if (above) {
+                logger.warn("Upload disk above high watermark: {} of {} bytes free, uploads are rejected",
+                        usableSpace, totalSpace);
+            } else {
+                logger.info("Upload disk back below high watermark: {} of {} bytes free", usableSpace, totalSpace);
+            }
+        }
+    }
+
+    /**
+     * 判断写入指定字节数后磁盘是否仍在水位以内
+     */
+    public boolean canAccept(long incomingBytes) {
+        long total = totalSpace;
+        if (total <= 0) {
+            return true;
+        }
+        long remaining = usableSpace - Math.max(0, incomingBytes);
+        return remaining >= minFree.toBytes() && (double) (total - remaining) / total <= highWatermark;
+    }
+
+    private double usageRatio() {
+        long total = totalSpace;
+        return total > 0 ? (double) (total - usableSpace) / total : 0;
+    }
+}
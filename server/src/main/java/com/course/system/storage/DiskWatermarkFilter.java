@@ -0,0 +1,74 @@
+package com.course.system.storage;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * 磁盘超过高水位时提前拒绝上传
+ *
+ * 在请求体被读取（包括容器解析 multipart）之前根据 Content-Length 或声明的文件大小判断，
+ * 返回 507 Insufficient Storage，不接收任何上传内容。
+ */
+@Component
+public class DiskWatermarkFilter extends OncePerRequestFilter {
+
+    private static final String UPLOAD_PATH = "/api/files/upload";
+    private static final String CHUNKED_INIT_PATH = "/api/files/chunked/init";
+    private static final Pattern CHUNK_PATH = Pattern.compile("^/api/files/chunked/[^/]+/chunks/\\d+$");
+
+    private static final String REJECTED_BODY = "{\"code\":507,\"message\":\"Insufficient storage\"}";
+
+    @Autowired
+    private DiskWatermark diskWatermark;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("POST".equals(request.getMethod())) {
+            return !path.equals(UPLOAD_PATH) && !path.equals(CHUNKED_INIT_PATH);
+        }
+        return !"PUT".equals(request.getMethod()) || !CHUNK_PATH.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        if (diskWatermark.canAccept(incomingBytes(request))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpStatus.INSUFFICIENT_STORAGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(REJECTED_BODY);
+    }
+
+    /**
+     * 分片上传初始化按声明的文件大小计算，其余按请求体长度计算
+     */
+    private long incomingBytes(HttpServletRequest request) {
+        if (request.getRequestURI().endsWith(CHUNKED_INIT_PATH)) {
+            try {
+                return Long.parseLong(request.getParameter("fileSize"));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return Math.max(0, request.getContentLengthLong());
+    }
+}
@@ -0,0 +1,470 @@
+package com.course.system.storage;
+
+import com.course.system.mapper.ChunkedUploadMapper;
+import com.course.system.mapper.CourseMapper;
+import com.course.system.mapper.CourseResourceMapper;
+import com.course.system.mapper.ResourceBlobMapper;
+import com.course.system.service.ChunkedUploadService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 上传目录孤儿文件回收
+ *
+ * 删除资源时数据库记录先于文件删除，文件删除失败或上传中途失败都会留下没有记录的文件。
+ * 本任务定时扫描本地上传目录，并行处理各课程目录与内容块目录，删除超过保留期且没有记录引用的文件：
+ *
+ * - {courseId}/ 旧版资源文件：逐行读取该课程的 stored_file_name（流式游标）后比对；
+ *   只处理名称是现有课程ID的目录，其它未知目录（lost+found、备份等）记录日志后跳过
+ * - blobs/ 内容块：按批查询 resource_blobs，删除前在摘要锁内再次确认
+ * - *.thumb.png 缩略图：源文件没有记录时一并删除
+ * - tmp/ 临时文件与 chunks/ 中没有会话记录的分片目录；超时未完成的分片上传会话
+ *
+ * 修改时间在保留期内的文件一律跳过，避免误删正在上传的文件。仅适用于本地存储
+ * （S3 等对象存储请使用存储桶的生命周期规则）。
+ * 回收结果写入日志，并通过 /actuator/metrics/file.gc.reclaimed 查看累计回收字节数。
+ */
+@Component
+public class OrphanFileCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanFileCollector.class);
+
+    private static final String BLOBS_DIR = "blobs";
+    private static final String TEMP_DIR = "tmp";
+    private static final String CHUNKS_DIR = "chunks";
+
+    private static final Pattern CONTENT_HASH_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    @Autowired
+    private ResourceStorageFactory storageFactory;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private CourseResourceMapper resourceMapper;
+
+    @Autowired
+    private ResourceBlobMapper blobMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private ChunkedUploadMapper chunkedUploadMapper;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.gc.grace-period:24h}")
+    private Duration gracePeriod;
+
+    @Value("${file.gc.parallelism:4}")
+    private int parallelism;
+
+    @Value("${file.gc.dry-run:false}")
+    private boolean dryRun;
+
+    @Value("${file.chunked.session-ttl:24h}")
+    private Duration chunkSessionTtl;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter reclaimedBytesCounter;
+
+    private Counter deletedFilesCounter;
+
+    /**
+     * 一次回收的统计结果
+     */
+    public static class Result {
+        private final AtomicLong scannedFiles = new AtomicLong();
+        private final AtomicLong deletedFiles = new AtomicLong();
+        private final AtomicLong reclaimedBytes = new AtomicLong();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        public long getScannedFiles() {
+            return scannedFiles.get();
+        }
+
+        public long getDeletedFiles() {
+            return deletedFiles.get();
+        }
+
+        public long getReclaimedBytes() {
+            return reclaimedBytes.get();
+        }
+
+        public int getFailures() {
+            return failures.get();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        reclaimedBytesCounter = Counter.builder("file.gc.reclaimed")
+                .baseUnit("bytes")
+                .description("Bytes reclaimed by orphan file collection")
+                .register(meterRegistry);
+        deletedFilesCounter = Counter.builder("file.gc.deleted")
+                .baseUnit("files")
+                .description("Orphan files deleted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${file.gc.cron:0 30 3 * * *}")
+    public void scheduledCollect() {
+        if (enabled) {
+            collect();
+        }
+    }
+
+    /**
+     * 执行一次回收；已有回收在运行时直接返回 null
+     */
+    public Result collect() {
+        Path root = storageFactory.getStorage().localPath("");
+        if (root == null) {
+            logger.debug("Orphan file collection skipped: storage {} is not local",
+                    storageFactory.getStorage().getStorageName());
+            return null;
+        }
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Orphan file collection already running");
+            return null;
+        }
+        try {
+            return doCollect(root.toAbsolutePath().normalize());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Result doCollect(Path root) {
+        long started = System.currentTimeMillis();
+        long cutoff = started - gracePeriod.toMillis();
+        Result result = new Result();
+
+        // 先清理超时的分片上传会话（会话目录随之删除）
+        try {
+            chunkedUploadService.abortExpired(new Date(started - chunkSessionTtl.toMillis()));
+        } catch (RuntimeException e) {
+            logger.error("Failed to abort expired chunked uploads", e);
+            result.failures.incrementAndGet();
+        }
+
+        List<Runnable> tasks = new ArrayList<>();
+        Map<String, Path> courseDirs = new HashMap<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : children) {
+                String name = dir.getFileName().toString();
+                switch (name) {
+                    case BLOBS_DIR -> {
+                        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(dir, Files::isDirectory)) {
+                            for (Path prefix : prefixes) {
+                                tasks.add(() -> collectBlobs(prefix, cutoff, result));
+                            }
+                        }
+                    }
+                    case TEMP_DIR -> tasks.add(() -> collectTemp(dir, cutoff, result));
+                    case CHUNKS_DIR -> tasks.add(() -> collectChunks(dir, cutoff, result));
+                    default -> courseDirs.put(name, dir);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list upload directory {}", root, e);
+            return result;
+        }
+
+        // 只回收名称是现有课程ID的目录；lost+found、运维备份或误挂载的目录保持不动
+        Set<String> courseIds;
+        try {
+            courseIds = existingCourseIds(courseDirs.keySet());
+        } catch (RuntimeException e) {
+            logger.error("Failed to look up course directories, skipping them", e);
+            result.failures.incrementAndGet();
+            courseIds = Set.of();
+        }
+        for (Map.Entry<String, Path> entry : courseDirs.entrySet()) {
+            if (courseIds.contains(entry.getKey())) {
+                tasks.add(() -> collectCourse(entry.getValue(), entry.getKey(), cutoff, result));
+            } else {
+                logger.warn("Skipping {}: not a known course directory", entry.getValue());
+            }
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "orphan-gc-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks.size());
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Orphan file collection task failed", e.getCause());
+                    result.failures.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Orphan file collection{} finished in {} ms: scanned {} files, deleted {}, reclaimed {} bytes, {} failures",
+                dryRun ? " (dry run)" : "", System.currentTimeMillis() - started,
+                result.getScannedFiles(), result.getDeletedFiles(), result.getReclaimedBytes(), result.getFailures());
+        return result;
+    }
+
+    /**
+     * 分批查询目录名中存在的课程ID
+     */
+    private Set<String> existingCourseIds(Set<String> names) {
+        Set<String> existing = new HashSet<>();
+        List<String> batch = new ArrayList<>(LOOKUP_BATCH_SIZE);
+        for (String name : names) {
+            batch.add(name);
+            if (batch.size() >= LOOKUP_BATCH_SIZE) {
+                existing.addAll(courseMapper.selectExistingIds(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            existing.addAll(courseMapper.selectExistingIds(batch));
+        }
+        return existing;
+    }
+
+    /**
+     * 旧版课程目录：流式读取课程的存储文件名，目录中不在其中的文件即为孤儿
+     */
+    private void collectCourse(Path dir, String courseId, long cutoff, Result result) {
+        Set<String> known = new HashSet<>();
+        resourceMapper.streamStoredFileNames(courseId, context -> known.add(context.getResultObject()));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = sourceName(file.getFileName().toString());
+                if (known.contains(name)) {
+                    result.scannedFiles.incrementAndGet();
+                    continue;
+                }
+                BasicFileAttributes attributes = expiredFile(file, cutoff, result);
+                if (attributes != null) {
+                    delete(file, attributes.size(), result);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to scan course directory {}", dir, e);
+            result.failures.incrementAndGet();
+        }
+        deleteIfEmpty(dir);
+    }
+
+    /**
+     * 内容块目录 blobs/ab/：按批查询摘要是否仍有记录
+     */
+    private void collectBlobs(Path prefix, long cutoff, Result result) {
+        Map<String, List<Path>> candidates = new HashMap<>();
+        try (var walk = Files.walk(prefix, 2)) {
+            for (Path file : (Iterable<Path>) walk::iterator) {
+                String hash = sourceName(file.getFileName().toString());
+                if (!CONTENT_HASH_PATTERN.matcher(hash).matches()) {
+                    continue;
+                }
+                if (expiredFile(file, cutoff, result) != null) {
+                    candidates.computeIfAbsent(hash, h -> new ArrayList<>(1)).add(file);
+                    if (candidates.size() >= LOOKUP_BATCH_SIZE) {
+                        deleteUnreferencedBlobs(candidates, result);
+                        candidates.clear();
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Failed to scan blob directory {}", prefix, e);
+            result.failures.incrementAndGet();
+        }
+        if (!candidates.isEmpty()) {
+            deleteUnreferencedBlobs(candidates, result);
+        }
+    }
+
+    private void deleteUnreferencedBlobs(Map<String, List<Path>> candidates, Result result) {
+        Set<String> referenced = new HashSet<>(blobMapper.selectExistingHashes(candidates.keySet()));
+        for (Map.Entry<String, List<Path>> entry : candidates.entrySet()) {
+            if (referenced.contains(entry.getKey())) {
+                continue;
+            }
+            for (Path file : entry.getValue()) {
+                try {
+                    long size = Files.size(file);
+                    if (dryRun) {
+                        logger.info("Orphan blob file (dry run): {}", file);
+                        count(size, result);
+                    } else if (blobStore.deleteOrphan(entry.getKey(), file)) {
+                        logger.debug("Deleted orphan blob file {}", file);
+                        count(size, result);
+                    }
+                } catch (IOException e) {
+                    logger.warn("Failed to delete orphan blob file {}", file, e);
+                    result.failures.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 临时目录：超过保留期的文件都可以删除
+     */
+    private void collectTemp(Path dir, long cutoff, Result result) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes = expiredFile(file, cutoff, result);
+                if (attributes != null) {
+                    delete(file, attributes.size(), result);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to scan temp directory {}", dir, e);
+            result.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * 分片目录：没有对应上传会话的目录整体删除
+     */
+    private void collectChunks(Path dir, long cutoff, Result result) {
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path session : sessions) {
+                if (Files.getLastModifiedTime(session).toMillis() >= cutoff
+                        || chunkedUploadMapper.selectById(session.getFileName().toString()) != null) {
+                    continue;
+                }
+                long size = FileUtils.sizeOfDirectory(session.toFile());
+                if (dryRun) {
+                    logger.info("Orphan chunk directory (dry run): {}", session);
+                    count(size, result);
+                    continue;
+                }
+                try {
+                    FileUtils.deleteDirectory(session.toFile());
+                    count(size, result);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete orphan chunk directory {}", session, e);
+                    result.failures.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to scan chunk directory {}", dir, e);
+            result.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * 返回超过保留期的普通文件属性，否则返回 null
+     */
+    private BasicFileAttributes expiredFile(Path file, long cutoff, Result result) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+        result.scannedFiles.incrementAndGet();
+        return attributes.lastModifiedTime().toMillis() < cutoff ? attributes : null;
+    }
+
+    private void delete(Path file, long size, Result result) {
+        if (dryRun) {
+            logger.info("Orphan file (dry run): {}", file);
+            count(size, result);
+            return;
+        }
+        try {
+            if (Files.deleteIfExists(file)) {
+                logger.debug("Deleted orphan file {}", file);
+                count(size, result);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete orphan file {}", file, e);
+            result.failures.incrementAndGet();
+        }
+    }
+
+    private void count(long size, Result result) {
+        result.deletedFiles.incrementAndGet();
+        result.reclaimedBytes.addAndGet(size);
+        if (!dryRun) {
+            deletedFilesCounter.increment();
+            reclaimedBytesCounter.increment(size);
+        }
+    }
+
+    private void deleteIfEmpty(Path dir) {
+        if (dryRun) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(dir);
+        } catch (DirectoryNotEmptyException e) {
+            // 目录中仍有文件
+        } catch (IOException e) {
+            logger.debug("Failed to delete empty directory {}", dir, e);
+        }
+    }
+
+    /**
+     * 缩略图文件归属于其源文件
+     */
+    private static String sourceName(String fileName) {
+        return fileName.endsWith(StorageKeys.THUMBNAIL_SUFFIX)
+                ? fileName.substring(0, fileName.length() - StorageKeys.THUMBNAIL_SUFFIX.length())
+                : fileName;
+    }
+}
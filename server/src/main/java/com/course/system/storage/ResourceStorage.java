@@ -0,0 +1,61 @@
+package com.course.system.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Resource Storage Interface
+ * 课程资源存储后端接口
+ *
+ * 存储键 (key) 是与后端无关的相对路径，例如 "blobs/ab/cd/{hash}"
+ */
+public interface ResourceStorage {
+
+    /**
+     * 将本地文件存入存储，成功后源文件不再属于调用方（可能被移动或删除）
+     *
+     * @param key         存储键
+     * @param source      本地源文件
+     * @param contentType MIME 类型，可为空
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * 对象是否存在
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * 对象大小 (字节)
+     *
+     * @throws java.nio.file.NoSuchFileException 对象不存在
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * 读取对象的一个区间
+     *
+     * @param offset 起始位置
+     * @param length 读取长度
+     * @throws java.nio.file.NoSuchFileException 对象不存在
+     */
+    InputStream openStream(String key, long offset, long length) throws IOException;
+
+    /**
+     * 删除对象，不存在时忽略
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * 对象在本地文件系统中的路径，用于 sendfile / X-Accel-Redirect 等零拷贝发送
+     *
+     * @return 本地存储返回文件路径，远程存储返回 null
+     */
+    Path localPath(String key);
+
+    /**
+     * 获取存储后端名称
+     */
+    String getStorageName();
+}
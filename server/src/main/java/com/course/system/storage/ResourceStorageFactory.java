@@ -0,0 +1,55 @@
+package com.course.system.storage;
+
+import com.course.system.config.StorageConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Resource Storage Factory
+ * 课程资源存储后端工厂
+ *
+ * 根据配置自动选择存储后端
+ */
+@Component
+public class ResourceStorageFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceStorageFactory.class);
+
+    @Autowired
+    private StorageConfig storageConfig;
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    private ResourceStorage storage;
+
+    @PostConstruct
+    public void init() throws IOException {
+        String type = storageConfig.getType().toLowerCase();
+
+        switch (type) {
+            case "s3":
+                storage = new S3ResourceStorage(storageConfig.getS3());
+                break;
+            case "local":
+            default:
+                storage = new LocalResourceStorage(Paths.get(uploadDir));
+                break;
+        }
+        logger.info("Using resource storage: {}", storage.getStorageName());
+    }
+
+    /**
+     * 获取当前配置的存储后端
+     */
+    public ResourceStorage getStorage() {
+        return storage;
+    }
+}
@@ -0,0 +1,217 @@
+package com.course.system.storage;
+
+import com.course.system.config.StorageConfig;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * S3 Compatible Object Storage
+ * S3 兼容对象存储实现（AWS S3、MinIO 等）
+ *
+ * 多个服务节点共享同一个存储桶，任一节点上传的资源其他节点都能读取。
+ * 本地开发可使用 MinIO:
+ * docker run -p 9000:9000 minio/minio server /data
+ * 然后配置 file.storage.type=s3, file.storage.s3.endpoint=http://localhost:9000
+ */
+public class S3ResourceStorage implements ResourceStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3ResourceStorage.class);
+
+    private final StorageConfig.S3Config config;
+    private final S3Client client;
+
+    public S3ResourceStorage(StorageConfig.S3Config config) {
+        this.config = config;
+
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(config.getRegion()))
+                .forcePathStyle(config.isPathStyleAccess());
+        if (config.getEndpoint() != null && !config.getEndpoint().isEmpty()) {
+            builder.endpointOverride(URI.create(config.getEndpoint()));
+        }
+        if (config.getAccessKey() != null && !config.getAccessKey().isEmpty()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(config.getAccessKey(), config.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        this.client = builder.build();
+        logger.info("S3 storage client initialized for bucket {}", config.getBucket());
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        try {
+            if (size > config.getMultipartPartSize()) {
+                putMultipart(objectKey(key), source, size, contentType);
+            } else {
+                client.putObject(PutObjectRequest.builder()
+                                .bucket(config.getBucket())
+                                .key(objectKey(key))
+                                .contentType(contentType)
+                                .build(),
+                        RequestBody.fromFile(source));
+            }
+        } catch (S3Exception e) {
+            throw new IOException("Failed to upload " + key + " to S3", e);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    /**
+     * 大文件分段上传，每次只读取一个分段，不会把整个文件读入内存
+     */
+    private void putMultipart(String objectKey, Path source, long size, String contentType) throws IOException {
+        String uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(config.getBucket())
+                .key(objectKey)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long partSize = config.getMultipartPartSize();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                String eTag;
+                try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                    channel.position(offset);
+                    InputStream partStream = new BoundedInputStream(Channels.newInputStream(channel), length);
+                    eTag = client.uploadPart(UploadPartRequest.builder()
+                                    .bucket(config.getBucket())
+                                    .key(objectKey)
+                                    .uploadId(uploadId)
+                                    .partNumber(partNumber)
+                                    .contentLength(length)
+                                    .build(),
+                            RequestBody.fromInputStream(partStream, length)).eTag();
+                }
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+            }
+            client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(config.getBucket())
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(config.getBucket())
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            head(key);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return head(key);
+    }
+
+    @Override
+    public InputStream openStream(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            return client.getObject(GetObjectRequest.builder()
+                    .bucket(config.getBucket())
+                    .key(objectKey(key))
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
+                    .build());
+        } catch (S3Exception e) {
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(config.getBucket())
+                    .key(objectKey(key))
+                    .build());
+        } catch (S3Exception e) {
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return null;
+    }
+
+    @Override
+    public String getStorageName() {
+        return "S3 (" + config.getBucket() + ")";
+    }
+
+    /**
+     * 查询对象大小
+     */
+    private long head(String key) throws IOException {
+        try {
+            return client.headObject(HeadObjectRequest.builder()
+                    .bucket(config.getBucket())
+                    .key(objectKey(key))
+                    .build()).contentLength();
+        } catch (S3Exception e) {
+            throw translate(key, e);
+        }
+    }
+
+    private String objectKey(String key) {
+        String prefix = config.getKeyPrefix();
+        return (prefix != null ? prefix : "") + key;
+    }
+
+    private IOException translate(String key, S3Exception e) {
+        if (e.statusCode() == 404) {
+            return new NoSuchFileException(key);
+        }
+        return new IOException("S3 request failed for " + key, e);
+    }
+}
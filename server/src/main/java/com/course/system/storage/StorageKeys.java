@@ -0,0 +1,43 @@
+package com.course.system.storage;
+
+import com.course.system.entity.CourseResource;
+
+/**
+ * 存储键规则
+ *
+ * - 按内容寻址的资源: blobs/ab/cd/{hash}
+ * - 旧版按课程目录存放的资源: {courseId}/{storedFileName}
+ * - 缩略图与源文件相邻存放: {源文件存储键}.thumb.png
+ */
+public final class StorageKeys {
+
+    public static final String THUMBNAIL_SUFFIX = ".thumb.png";
+
+    private StorageKeys() {
+    }
+
+    /**
+     * 内容块的存储键
+     */
+    public static String blobKey(String contentHash) {
+        return "blobs/" + contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+    }
+
+    /**
+     * 课程资源对应的存储键
+     */
+    public static String resourceKey(CourseResource resource) {
+        String hash = resource.getContentHash();
+        if (hash != null && hash.equals(resource.getStoredFileName())) {
+            return blobKey(hash);
+        }
+        return resource.getCourseId() + "/" + resource.getStoredFileName();
+    }
+
+    /**
+     * 源文件对应的缩略图存储键
+     */
+    public static String thumbnailKey(String sourceKey) {
+        return sourceKey + THUMBNAIL_SUFFIX;
+    }
+}
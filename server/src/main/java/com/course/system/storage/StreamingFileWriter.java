@@ -0,0 +1,105 @@
+package com.course.system.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 流式文件写入工具
+ *
+ * 通过固定大小的缓冲区将输入流拷贝到目标文件，同时计算文件大小与 SHA-256 摘要，
+ * 每次上传占用的堆内存与文件大小无关。
+ * 数据先写入同目录下的临时文件，完成后再原子移动到目标位置，避免留下半截文件。
+ */
+public final class StreamingFileWriter {
+
+    /**
+     * 拷贝缓冲区大小 (64KB)
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private StreamingFileWriter() {
+    }
+
+    /**
+     * 写入结果：文件大小与内容摘要
+     */
+    @Data
+    @AllArgsConstructor
+    public static class WriteResult {
+        /**
+         * 写入的字节数
+         */
+        private long size;
+
+        /**
+         * SHA-256 摘要 (小写十六进制)
+         */
+        private String sha256;
+    }
+
+    /**
+     * 将输入流写入目标文件
+     *
+     * @param in     输入流 (调用方负责关闭)
+     * @param target 目标文件路径，父目录不存在时自动创建
+     * @return 文件大小与 SHA-256 摘要
+     */
+    public static WriteResult write(InputStream in, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, ".upload-", ".tmp");
+        try {
+            WriteResult result = writeTo(in, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 将输入流直接写入指定文件（不做原子移动），文件已存在时会被覆盖
+     */
+    public static WriteResult writeTo(InputStream in, Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                size += read;
+            }
+        }
+        return new WriteResult(size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * 创建 SHA-256 摘要实例
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // JDK 规范保证 SHA-256 一定可用
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.course.system.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RangeFileSenderTest {
+
+    private static final long LENGTH = 1000;
+
+    @Test
+    void noHeaderMeansFullBody() {
+        assertTrue(RangeFileSender.resolveRanges(null, LENGTH).isEmpty());
+        assertTrue(RangeFileSender.resolveRanges("", LENGTH).isEmpty());
+    }
+
+    @Test
+    void singleRanges() {
+        assertRanges(RangeFileSender.resolveRanges("bytes=0-99", LENGTH), new long[]{0, 99});
+        assertRanges(RangeFileSender.resolveRanges("bytes=900-", LENGTH), new long[]{900, 999});
+        assertRanges(RangeFileSender.resolveRanges("bytes=-100", LENGTH), new long[]{900, 999});
+        // 结束位置超出文件长度时截断
+        assertRanges(RangeFileSender.resolveRanges("bytes=990-2000", LENGTH), new long[]{990, 999});
+    }
+
+    @Test
+    void disjointRangesAreSortedAndKept() {
+        assertRanges(RangeFileSender.resolveRanges("bytes=500-599,0-99", LENGTH),
+                new long[]{0, 99}, new long[]{500, 599});
+    }
+
+    @Test
+    void overlappingAndAdjacentRangesAreMerged() {
+        assertRanges(RangeFileSender.resolveRanges("bytes=0-99,50-149,150-199,400-499", LENGTH),
+                new long[]{0, 199}, new long[]{400, 499});
+        assertRanges(RangeFileSender.resolveRanges("bytes=100-199,120-130", LENGTH), new long[]{100, 199});
+    }
+
+    @Test
+    void requestingMoreThanTheFileFallsBackToFullBody() {
+        // 重叠的范围总长超过文件长度，视为放大攻击，按 200 返回完整内容
+        assertTrue(RangeFileSender.resolveRanges("bytes=0-999,0-999", LENGTH).isEmpty());
+        assertTrue(RangeFileSender.resolveRanges("bytes=0-599,400-999", LENGTH).isEmpty());
+    }
+
+    @Test
+    void unsatisfiableRangesAreSkipped() {
+        assertRanges(RangeFileSender.resolveRanges("bytes=2000-3000,0-9", LENGTH), new long[]{0, 9});
+    }
+
+    @Test
+    void noSatisfiableRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RangeFileSender.resolveRanges("bytes=1000-", LENGTH));
+        assertThrows(IllegalArgumentException.class, () -> RangeFileSender.resolveRanges("bytes=0-9", 0));
+        assertThrows(IllegalArgumentException.class, () -> RangeFileSender.resolveRanges("items=0-9", LENGTH));
+    }
+
+    private static void assertRanges(List<long[]> actual, long[]... expected) {
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual.get(i));
+        }
+    }
+}
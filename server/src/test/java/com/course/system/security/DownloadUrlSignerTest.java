@@ -0,0 +1,124 @@
+package com.course.system.security;
+
+import com.course.system.download.DownloadTarget;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadUrlSignerTest {
+
+    private static final String JWT_SECRET = "CourseManagementSystemSecretKeyForJWTTokenGeneration2026VeryLongSecretKey";
+
+    private static DownloadUrlSigner signer(String secret, long ttlSeconds) {
+        DownloadUrlSigner signer = new DownloadUrlSigner();
+        ReflectionTestUtils.setField(signer, "secret", secret);
+        ReflectionTestUtils.setField(signer, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(signer, "ttlSeconds", ttlSeconds);
+        signer.init();
+        return signer;
+    }
+
+    private static DownloadTarget target() {
+        return DownloadTarget.builder()
+                .resourceId("resource-1")
+                .storageKey("blobs/ab/cd/abcd")
+                .contentType("application/pdf")
+                .fileName("第一章\n讲义.pdf")
+                .etag("abcd")
+                .lastModified(1_700_000_000_000L)
+                .build();
+    }
+
+    @Test
+    void signedTokenRoundTrips() {
+        DownloadUrlSigner signer = signer("", 600);
+        long before = System.currentTimeMillis();
+
+        DownloadUrlSigner.SignedDownload download = signer.verify(signer.sign(target()));
+
+        assertNotNull(download);
+        assertEquals("resource-1", download.getResourceId());
+        assertEquals("blobs/ab/cd/abcd", download.getStorageKey());
+        assertEquals("application/pdf", download.getFileType());
+        // 换行是字段分隔符，文件名中的换行被替换
+        assertEquals("第一章 讲义.pdf", download.getFileName());
+        assertEquals("abcd", download.getEtag());
+        assertEquals(1_700_000_000_000L, download.getLastModified());
+        assertTrue(download.getExpiresAt() >= before + 600_000);
+    }
+
+    @Test
+    void missingOptionalFieldsRoundTripAsNull() {
+        DownloadUrlSigner signer = signer("", 600);
+        DownloadTarget target = DownloadTarget.builder()
+                .resourceId("resource-1")
+                .storageKey("course-1/file.bin")
+                .lastModified(-1)
+                .build();
+
+        DownloadUrlSigner.SignedDownload download = signer.verify(signer.sign(target));
+
+        assertNotNull(download);
+        assertNull(download.getFileType());
+        assertNull(download.getFileName());
+        assertNull(download.getEtag());
+        assertEquals(-1, download.getLastModified());
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        DownloadUrlSigner signer = signer("", 600);
+        String token = signer.sign(target());
+        int dot = token.indexOf('.');
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                payload.replace("resource-1", "resource-2").getBytes(StandardCharsets.UTF_8));
+
+        assertNull(signer.verify(forged + token.substring(dot)));
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        DownloadUrlSigner signer = signer("", 600);
+        String token = signer.sign(target());
+        // 修改签名的第一个字符（最后一个字符含填充位，修改后解码结果可能不变）
+        int first = token.indexOf('.') + 1;
+        String forged = token.substring(0, first) + (token.charAt(first) == 'A' ? 'B' : 'A')
+                + token.substring(first + 1);
+
+        assertNull(signer.verify(forged));
+    }
+
+    @Test
+    void tokenFromAnotherKeyIsRejected() {
+        String token = signer("", 600).sign(target());
+
+        assertNull(signer("explicit-download-secret", 600).verify(token));
+        assertNotNull(signer("", 600).verify(token));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        DownloadUrlSigner signer = signer("", -1);
+
+        assertNull(signer.verify(signer.sign(target())));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        DownloadUrlSigner signer = signer("", 600);
+
+        assertNull(signer.verify(null));
+        assertNull(signer.verify(""));
+        assertNull(signer.verify("no-dot"));
+        assertNull(signer.verify(".signature"));
+        assertNull(signer.verify("!!!.???"));
+    }
+}
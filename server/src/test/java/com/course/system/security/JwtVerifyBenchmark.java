@@ -0,0 +1,102 @@
+package com.course.system.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求的 JWT 认证开销
+ *
+ * - legacyFourParses: 改造前的过滤器，extractUserId / extractRole / validateToken 各自重建密钥与
+ *   parser 并解析令牌，共 4 次
+ * - singleParse: 启动时构建一次的 parser 解析一次（JwtUtil.verify 未命中缓存时的开销）
+ * - verifyCached: JwtUtil.verify 命中已验证令牌缓存
+ *
+ * 运行: mvn test-compile 后以测试 classpath 执行本类的 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "CourseManagementSystemSecretKeyForJWTTokenGeneration2026VeryLongSecretKey";
+
+    private JwtUtil jwtUtil;
+
+    private JwtParser parser;
+
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        JwtKeyStore keyStore = new JwtKeyStore();
+        ReflectionTestUtils.setField(keyStore, "secret", SECRET);
+        ReflectionTestUtils.setField(keyStore, "algorithm", "HS512");
+        keyStore.init();
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheTtlSeconds", 300L);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "revocationList", new TokenRevocationList());
+        ReflectionTestUtils.setField(jwtUtil, "keyStore", keyStore);
+        jwtUtil.init();
+
+        parser = Jwts.parser().keyLocator(keyStore).build();
+        token = jwtUtil.generateToken("user-1", "STUDENT");
+    }
+
+    @Benchmark
+    public Object legacyFourParses() {
+        String userId = legacyParse(token).getSubject();
+        String role = legacyParse(token).get("role", String.class);
+        boolean valid = legacyParse(token) != null && !legacyParse(token).getExpiration().before(new Date());
+        return valid ? userId + role : null;
+    }
+
+    @Benchmark
+    public Object singleParse() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    /**
+     * 改造前的 extractAllClaims：每次调用都重新构建密钥与 parser
+     */
+    private static Claims legacyParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.substring(0, 64).getBytes());
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerifyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,195 @@
+package com.course.system.service;
+
+import com.course.system.dto.TokenResponse;
+import com.course.system.entity.RefreshToken;
+import com.course.system.entity.User;
+import com.course.system.mapper.RefreshTokenMapper;
+import com.course.system.mapper.UserMapper;
+import com.course.system.security.JwtPrincipal;
+import com.course.system.security.JwtUtil;
+import com.course.system.security.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthTokenServiceImplTest {
+
+    private InMemoryRefreshTokenMapper refreshTokenMapper;
+    private JwtUtil jwtUtil;
+    private TokenRevocationList revocationList;
+    private AuthTokenServiceImpl service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenMapper = new InMemoryRefreshTokenMapper();
+        jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("access-token");
+        when(jwtUtil.getExpiration()).thenReturn(900_000L);
+        revocationList = mock(TokenRevocationList.class);
+
+        user = new User();
+        user.setUserId("user-1");
+        user.setRole("STUDENT");
+        UserMapper userMapper = mock(UserMapper.class);
+        when(userMapper.selectById("user-1")).thenReturn(user);
+
+        service = new AuthTokenServiceImpl();
+        ReflectionTestUtils.setField(service, "refreshTokenMapper", refreshTokenMapper);
+        ReflectionTestUtils.setField(service, "userMapper", userMapper);
+        ReflectionTestUtils.setField(service, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(service, "revocationList", revocationList);
+        ReflectionTestUtils.setField(service, "refreshExpiration", 1_209_600_000L);
+    }
+
+    @Test
+    void refreshRotatesTheToken() {
+        TokenResponse issued = service.issueTokens(user);
+        assertEquals("access-token", issued.getToken());
+        assertEquals(900, issued.getExpiresIn());
+
+        TokenResponse refreshed = service.refresh(issued.getRefreshToken());
+
+        assertNotNull(refreshed);
+        assertNotEquals(issued.getRefreshToken(), refreshed.getRefreshToken());
+        assertEquals(2, refreshTokenMapper.tokens.size());
+        // 新令牌属于同一令牌族，只保存摘要
+        RefreshToken[] rows = refreshTokenMapper.tokens.values().toArray(new RefreshToken[0]);
+        assertEquals(rows[0].getFamilyId(), rows[1].getFamilyId());
+        assertTrue(refreshTokenMapper.tokens.keySet().stream()
+                .noneMatch(key -> key.equals(issued.getRefreshToken()) || key.equals(refreshed.getRefreshToken())));
+
+        assertNotNull(service.refresh(refreshed.getRefreshToken()));
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheFamily() {
+        TokenResponse issued = service.issueTokens(user);
+        TokenResponse refreshed = service.refresh(issued.getRefreshToken());
+        TokenResponse otherSession = service.issueTokens(user);
+
+        // 旧令牌再次出现：可能已被盗用
+        assertNull(service.refresh(issued.getRefreshToken()));
+
+        assertNull(service.refresh(refreshed.getRefreshToken()));
+        // 其它登录会话不受影响
+        assertNotNull(service.refresh(otherSession.getRefreshToken()));
+    }
+
+    @Test
+    void unknownOrExpiredTokensAreRejected() {
+        assertNull(service.refresh(null));
+        assertNull(service.refresh(""));
+        assertNull(service.refresh("not-a-token"));
+
+        ReflectionTestUtils.setField(service, "refreshExpiration", -1L);
+        TokenResponse expired = service.issueTokens(user);
+        assertNull(service.refresh(expired.getRefreshToken()));
+    }
+
+    @Test
+    void refreshFailsForDeletedUser() {
+        TokenResponse issued = service.issueTokens(user);
+        user.setUserId("user-2");
+        TokenResponse orphan = service.issueTokens(user);
+
+        assertNull(service.refresh(orphan.getRefreshToken()));
+        assertNotNull(service.refresh(issued.getRefreshToken()));
+    }
+
+    @Test
+    void logoutRevokesAccessTokenAndRefreshFamily() {
+        TokenResponse issued = service.issueTokens(user);
+        TokenResponse refreshed = service.refresh(issued.getRefreshToken());
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        when(jwtUtil.verify("access-token")).thenReturn(new JwtPrincipal("jti-1", "user-1", "STUDENT", expiresAt));
+
+        service.logout("access-token", refreshed.getRefreshToken());
+
+        verify(revocationList).revoke("jti-1", expiresAt);
+        assertNull(service.refresh(refreshed.getRefreshToken()));
+    }
+
+    @Test
+    void revokeAllForUserEndsEverySession() {
+        TokenResponse first = service.issueTokens(user);
+        TokenResponse second = service.issueTokens(user);
+
+        service.revokeAllForUser("user-1");
+
+        assertNull(service.refresh(first.getRefreshToken()));
+        assertNull(service.refresh(second.getRefreshToken()));
+    }
+
+    /**
+     * 按 RefreshTokenMapper.xml 的语义在内存中保存刷新令牌
+     */
+    private static class InMemoryRefreshTokenMapper implements RefreshTokenMapper {
+
+        final Map<String, RefreshToken> tokens = new HashMap<>();
+
+        @Override
+        public int insert(RefreshToken token) {
+            tokens.put(token.getTokenHash(), token);
+            return 1;
+        }
+
+        @Override
+        public RefreshToken selectByHash(String tokenHash) {
+            return tokens.get(tokenHash);
+        }
+
+        @Override
+        public int updateStatus(String tokenHash, String expected, String status) {
+            RefreshToken token = tokens.get(tokenHash);
+            if (token == null || !expected.equals(token.getStatus())) {
+                return 0;
+            }
+            token.setStatus(status);
+            return 1;
+        }
+
+        @Override
+        public int revokeFamily(String familyId) {
+            return revokeWhere(token -> token.getFamilyId().equals(familyId));
+        }
+
+        @Override
+        public int revokeByUser(String userId) {
+            return revokeWhere(token -> token.getUserId().equals(userId));
+        }
+
+        @Override
+        public int deleteExpired(Date before) {
+            int size = tokens.size();
+            tokens.values().removeIf(token -> token.getExpiresAt().before(before));
+            return size - tokens.size();
+        }
+
+        private int revokeWhere(Predicate<RefreshToken> filter) {
+            int revoked = 0;
+            for (RefreshToken token : tokens.values()) {
+                if (filter.test(token) && !"REVOKED".equals(token.getStatus())) {
+                    token.setStatus("REVOKED");
+                    revoked++;
+                }
+            }
+            return revoked;
+        }
+    }
+}
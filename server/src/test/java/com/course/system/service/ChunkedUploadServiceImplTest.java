@@ -0,0 +1,182 @@
+package com.course.system.service;
+
+import com.course.system.entity.ChunkedUpload;
+import com.course.system.entity.CourseResource;
+import com.course.system.mapper.ChunkedUploadMapper;
+import com.course.system.storage.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceImplTest {
+
+    private static final String UPLOAD_ID = "upload-1";
+    private static final byte[] CONTENT = "0123456789abcdefghij!".getBytes(StandardCharsets.US_ASCII);
+    private static final int CHUNK_SIZE = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private ChunkedUploadMapper uploadMapper;
+    private CourseResourceService resourceService;
+    private ChunkedUploadServiceImpl service;
+    private ChunkedUpload upload;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploadMapper = mock(ChunkedUploadMapper.class);
+        resourceService = mock(CourseResourceService.class);
+        BlobStore blobStore = mock(BlobStore.class);
+        when(blobStore.createTempFile()).thenAnswer(invocation -> Files.createTempFile(tempDir, "upload-", ".tmp"));
+
+        service = new ChunkedUploadServiceImpl();
+        ReflectionTestUtils.setField(service, "uploadMapper", uploadMapper);
+        ReflectionTestUtils.setField(service, "resourceService", resourceService);
+        ReflectionTestUtils.setField(service, "blobStore", blobStore);
+        ReflectionTestUtils.setField(service, "uploadDir", tempDir.toString());
+        ReflectionTestUtils.setField(service, "defaultChunkSize", DataSize.ofBytes(CHUNK_SIZE));
+        ReflectionTestUtils.setField(service, "maxChunkSize", DataSize.ofMegabytes(64));
+        ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofGigabytes(1));
+        service.init();
+
+        upload = new ChunkedUpload();
+        upload.setUploadId(UPLOAD_ID);
+        upload.setCourseId("course-1");
+        upload.setUploaderId("user-1");
+        upload.setOriginalFileName("notes.txt");
+        upload.setFileSize((long) CONTENT.length);
+        upload.setChunkSize(CHUNK_SIZE);
+        upload.setTotalChunks(3);
+        upload.setContentHash(sha256(CONTENT));
+        upload.setStatus("UPLOADING");
+        when(uploadMapper.selectById(UPLOAD_ID)).thenReturn(upload);
+        when(uploadMapper.updateStatus(eq(UPLOAD_ID), anyString(), anyString())).thenReturn(1);
+    }
+
+    @Test
+    void completeJoinsChunksInIndexOrder() throws IOException {
+        // 乱序上传，最后一片较小
+        putChunk(2, null);
+        putChunk(0, null);
+        putChunk(1, null);
+        assertEquals(List.of(0, 1, 2), service.getReceivedChunks(upload));
+
+        AtomicReference<byte[]> imported = new AtomicReference<>();
+        CourseResource resource = new CourseResource();
+        resource.setResourceId("resource-1");
+        when(resourceService.importResource(eq("course-1"), eq("user-1"), any(Path.class), eq(sha256(CONTENT)),
+                eq((long) CONTENT.length), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    imported.set(Files.readAllBytes(invocation.getArgument(2)));
+                    return resource;
+                });
+
+        assertSame(resource, service.complete(upload));
+        assertArrayEquals(CONTENT, imported.get());
+        verify(uploadMapper).updateStatus(UPLOAD_ID, "UPLOADING", "COMPLETING");
+        verify(uploadMapper).delete(UPLOAD_ID);
+        assertFalse(Files.exists(tempDir.resolve("chunks").resolve(UPLOAD_ID)));
+    }
+
+    @Test
+    void completeRejectsMissingChunks() throws IOException {
+        putChunk(0, null);
+        putChunk(2, null);
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete(upload));
+        verify(uploadMapper, never()).updateStatus(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void completeRestoresStatusWhenTheAssembledFileDoesNotMatch() throws IOException {
+        upload.setContentHash(sha256("something else".getBytes(StandardCharsets.US_ASCII)));
+        for (int i = 0; i < 3; i++) {
+            putChunk(i, null);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete(upload));
+        verify(uploadMapper).updateStatus(UPLOAD_ID, "COMPLETING", "UPLOADING");
+        verify(resourceService, never()).importResource(any(), any(), any(), any(), anyLong(),
+                any(), any(), any(), any(), any());
+        // 分片保留，客户端可以重试
+        assertEquals(List.of(0, 1, 2), service.getReceivedChunks(upload));
+    }
+
+    @Test
+    void badChunkDoesNotReplaceTheReceivedOne() throws IOException {
+        putChunk(0, null);
+        Path chunk = tempDir.resolve("chunks").resolve(UPLOAD_ID).resolve("0.part");
+        byte[] original = Files.readAllBytes(chunk);
+
+        byte[] corrupt = "XXXXXXXX".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class, () -> service.putChunk(upload, 0,
+                new ByteArrayInputStream(corrupt), sha256(chunkBytes(0))));
+        assertThrows(IllegalArgumentException.class, () -> service.putChunk(upload, 0,
+                new ByteArrayInputStream(new byte[CHUNK_SIZE + 1]), null));
+
+        assertArrayEquals(original, Files.readAllBytes(chunk));
+        assertEquals(List.of(0), service.getReceivedChunks(upload));
+        try (Stream<Path> files = Files.list(chunk.getParent())) {
+            assertEquals(1, files.count(), "temporary chunk files must be removed");
+        }
+    }
+
+    @Test
+    void chunkIsNotMovedIntoPlaceAfterCompletionStarted() throws IOException {
+        ChunkedUpload completing = new ChunkedUpload();
+        completing.setUploadId(UPLOAD_ID);
+        completing.setStatus("COMPLETING");
+        when(uploadMapper.selectById(UPLOAD_ID)).thenReturn(completing);
+
+        assertThrows(IllegalArgumentException.class, () -> putChunk(1, null));
+        assertEquals(List.of(), service.getReceivedChunks(upload));
+    }
+
+    private void putChunk(int index, String sha256) throws IOException {
+        service.putChunk(upload, index, new ByteArrayInputStream(chunkBytes(index)), sha256);
+    }
+
+    private static byte[] chunkBytes(int index) {
+        int from = index * CHUNK_SIZE;
+        int to = Math.min(CONTENT.length, from + CHUNK_SIZE);
+        byte[] chunk = new byte[to - from];
+        System.arraycopy(CONTENT, from, chunk, 0, chunk.length);
+        return chunk;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.course.system.sms;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 30_000;
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS);
+        long now = 1_000_000;
+
+        breaker.recordFailure(now);
+        breaker.recordFailure(now);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(now));
+        assertTrue(breaker.tryAcquire(now));
+
+        breaker.recordFailure(now);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(now));
+        assertFalse(breaker.tryAcquire(now + 1));
+        assertEquals(OPEN_MILLIS - 1, breaker.remainingOpenMillis(now + 1));
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS);
+        long now = 1_000_000;
+
+        breaker.recordFailure(now);
+        breaker.recordFailure(now);
+        breaker.recordSuccess();
+        breaker.recordFailure(now);
+        breaker.recordFailure(now);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(now));
+    }
+
+    @Test
+    void halfOpenAllowsASingleTrial() {
+        CircuitBreaker breaker = openBreaker(1_000_000);
+        long later = 1_000_000 + OPEN_MILLIS;
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(later));
+        assertEquals(0, breaker.remainingOpenMillis(later));
+        assertTrue(breaker.tryAcquire(later));
+        assertFalse(breaker.tryAcquire(later));
+        assertFalse(breaker.tryAcquire(later + 1));
+    }
+
+    @Test
+    void successfulTrialCloses() {
+        CircuitBreaker breaker = openBreaker(1_000_000);
+        long later = 1_000_000 + OPEN_MILLIS;
+
+        assertTrue(breaker.tryAcquire(later));
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(later));
+        assertTrue(breaker.tryAcquire(later));
+        assertTrue(breaker.tryAcquire(later));
+    }
+
+    @Test
+    void failedTrialReopens() {
+        CircuitBreaker breaker = openBreaker(1_000_000);
+        long later = 1_000_000 + OPEN_MILLIS;
+
+        assertTrue(breaker.tryAcquire(later));
+        breaker.recordFailure(later);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(later));
+        assertFalse(breaker.tryAcquire(later + OPEN_MILLIS - 1));
+        // 新的熔断周期结束后可以再次试探
+        assertTrue(breaker.tryAcquire(later + OPEN_MILLIS));
+    }
+
+    @Test
+    void stuckTrialIsReplacedAfterAnotherPeriod() {
+        CircuitBreaker breaker = openBreaker(1_000_000);
+        long later = 1_000_000 + OPEN_MILLIS;
+
+        assertTrue(breaker.tryAcquire(later));
+        // 试探请求一直没有结果
+        assertFalse(breaker.tryAcquire(later + OPEN_MILLIS - 1));
+        assertTrue(breaker.tryAcquire(later + OPEN_MILLIS));
+    }
+
+    private static CircuitBreaker openBreaker(long now) {
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_MILLIS);
+        breaker.recordFailure(now);
+        return breaker;
+    }
+}
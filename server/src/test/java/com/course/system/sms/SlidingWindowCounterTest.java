@@ -0,0 +1,110 @@
+package com.course.system.sms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    private static final long WINDOW = 60_000;
+
+    @Test
+    void rejectsOnceTheLimitIsReached() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, 3);
+        long now = 1_000_000;
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(-1, counter.tryAcquire(now + i));
+        }
+        assertEquals(-1, counter.tryAcquire(now + 3));
+        // 被拒绝的请求不占用额度
+        assertEquals(-1, counter.tryAcquire(now + 4));
+    }
+
+    @Test
+    void countsSlideOutOfTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, 2);
+        long now = 1_000_000;
+        assertNotEquals(-1, counter.tryAcquire(now));
+        assertNotEquals(-1, counter.tryAcquire(now + WINDOW / 2));
+        assertEquals(-1, counter.tryAcquire(now + WINDOW / 2 + 1));
+
+        // 第一次计数所在的桶滑出窗口后，释放出一个名额
+        assertNotEquals(-1, counter.tryAcquire(now + WINDOW + WINDOW / 10));
+        assertEquals(-1, counter.tryAcquire(now + WINDOW + WINDOW / 10 + 1));
+
+        // 整个窗口之后计数全部清零
+        long later = now + 3 * WINDOW;
+        assertNotEquals(-1, counter.tryAcquire(later));
+        assertNotEquals(-1, counter.tryAcquire(later));
+    }
+
+    @Test
+    void releaseReturnsTheSlot() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, 1);
+        long now = 1_000_000;
+        long epoch = counter.tryAcquire(now);
+        assertNotEquals(-1, epoch);
+        assertEquals(-1, counter.tryAcquire(now));
+
+        counter.release(epoch);
+        assertNotEquals(-1, counter.tryAcquire(now));
+    }
+
+    @Test
+    void releaseOfAnExpiredBucketIsIgnored() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, 1);
+        long now = 1_000_000;
+        long epoch = counter.tryAcquire(now);
+
+        // 同一个槽位已被新的时间段复用，旧的撤销不能扣减新计数
+        long reused = now + WINDOW;
+        assertNotEquals(-1, counter.tryAcquire(reused));
+        counter.release(epoch);
+        assertEquals(-1, counter.tryAcquire(reused));
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedTheLimit() throws Exception {
+        int limit = 50;
+        int threads = 8;
+        int attemptsPerThread = 100;
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, limit);
+        long now = 1_000_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int acquired = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (counter.tryAcquire(now) != -1) {
+                        acquired++;
+                    }
+                }
+                return acquired;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(total <= limit, "acquired " + total + " > limit " + limit);
+        assertTrue(total > 0);
+    }
+}
@@ -0,0 +1,201 @@
+package com.course.system.storage;
+
+import com.course.system.entity.ResourceBlob;
+import com.course.system.mapper.ResourceBlobMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BlobStoreTest {
+
+    private static final String HASH = "ab" + "cd" + "0".repeat(60);
+    private static final byte[] CONTENT = "course notes".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryBlobMapper blobMapper;
+    private ResourceStorage storage;
+    private BlobStore blobStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        blobMapper = new InMemoryBlobMapper();
+        storage = new LocalResourceStorage(tempDir.resolve("storage"));
+        ResourceStorageFactory storageFactory = mock(ResourceStorageFactory.class);
+        when(storageFactory.getStorage()).thenReturn(storage);
+        ColdStorage coldStorage = mock(ColdStorage.class);
+        when(coldStorage.restore(anyString())).thenAnswer(invocation -> storage.exists(invocation.getArgument(0)));
+
+        blobStore = new BlobStore();
+        ReflectionTestUtils.setField(blobStore, "blobMapper", blobMapper);
+        ReflectionTestUtils.setField(blobStore, "storageFactory", storageFactory);
+        ReflectionTestUtils.setField(blobStore, "coldStorage", coldStorage);
+        ReflectionTestUtils.setField(blobStore, "uploadDir", tempDir.toString());
+        blobStore.init();
+    }
+
+    @Test
+    void identicalUploadsShareOneBlob() throws IOException {
+        Path first = upload();
+        blobStore.acquire(HASH, CONTENT.length, first);
+        Path second = upload();
+        blobStore.acquire(HASH, CONTENT.length, second);
+
+        assertEquals(2, blobMapper.refCount(HASH));
+        assertTrue(storage.exists(StorageKeys.blobKey(HASH)));
+        // 重复内容的临时文件被丢弃
+        assertFalse(Files.exists(second));
+    }
+
+    @Test
+    void blobIsDeletedWithTheLastReference() throws IOException {
+        blobStore.acquire(HASH, CONTENT.length, upload());
+        blobStore.acquire(HASH, CONTENT.length, upload());
+        String key = StorageKeys.blobKey(HASH);
+
+        assertTrue(blobStore.release(HASH));
+        assertEquals(1, blobMapper.refCount(HASH));
+        assertTrue(storage.exists(key));
+
+        assertTrue(blobStore.release(HASH));
+        assertNull(blobMapper.selectByHash(HASH));
+        assertFalse(storage.exists(key));
+    }
+
+    @Test
+    void releaseOfUnknownHashIsReported() {
+        assertFalse(blobStore.release(HASH));
+    }
+
+    @Test
+    void acquireExistingOnlyMatchesStoredContentOfTheSameSize() throws IOException {
+        assertNull(blobStore.acquireExisting(HASH, CONTENT.length));
+
+        blobStore.acquire(HASH, CONTENT.length, upload());
+        assertNull(blobStore.acquireExisting(HASH, CONTENT.length + 1));
+        assertNotNull(blobStore.acquireExisting(HASH, CONTENT.length));
+        assertEquals(2, blobMapper.refCount(HASH));
+    }
+
+    @Test
+    void acquireRewritesAnObjectDeletedBehindTheRecord() throws IOException {
+        blobStore.acquire(HASH, CONTENT.length, upload());
+        // 例如其它节点在本事务开始前删除了文件
+        storage.delete(StorageKeys.blobKey(HASH));
+
+        blobStore.acquire(HASH, CONTENT.length, upload());
+        assertEquals(2, blobMapper.refCount(HASH));
+        assertTrue(storage.exists(StorageKeys.blobKey(HASH)));
+    }
+
+    @Test
+    void orphanIsOnlyDeletedWithoutAReference() throws IOException {
+        blobStore.acquire(HASH, CONTENT.length, upload());
+        Path file = storage.localPath(StorageKeys.blobKey(HASH));
+        assertFalse(blobStore.deleteOrphan(HASH, file));
+        assertTrue(Files.exists(file));
+
+        blobMapper.blobs.clear();
+        assertTrue(blobStore.deleteOrphan(HASH, file));
+        assertFalse(Files.exists(file));
+    }
+
+    private Path upload() throws IOException {
+        Path file = blobStore.createTempFile();
+        Files.write(file, CONTENT);
+        return file;
+    }
+
+    /**
+     * 按 ResourceBlobMapper.xml 的语义在内存中维护引用计数
+     */
+    private static class InMemoryBlobMapper implements ResourceBlobMapper {
+
+        final Map<String, ResourceBlob> blobs = new HashMap<>();
+
+        int refCount(String contentHash) {
+            return blobs.get(contentHash).getRefCount();
+        }
+
+        @Override
+        public ResourceBlob selectByHash(String contentHash) {
+            return blobs.get(contentHash);
+        }
+
+        @Override
+        public ResourceBlob selectByHashForUpdate(String contentHash) {
+            return blobs.get(contentHash);
+        }
+
+        @Override
+        public int insertOrIncrement(ResourceBlob blob) {
+            ResourceBlob existing = blobs.get(blob.getContentHash());
+            if (existing != null) {
+                existing.setRefCount(existing.getRefCount() + 1);
+                return 2;
+            }
+            ResourceBlob row = new ResourceBlob();
+            row.setContentHash(blob.getContentHash());
+            row.setFilePath(blob.getFilePath());
+            row.setFileSize(blob.getFileSize());
+            row.setRefCount(1);
+            blobs.put(row.getContentHash(), row);
+            return 1;
+        }
+
+        @Override
+        public int incrementRefCount(String contentHash) {
+            ResourceBlob blob = blobs.get(contentHash);
+            if (blob == null) {
+                return 0;
+            }
+            blob.setRefCount(blob.getRefCount() + 1);
+            return 1;
+        }
+
+        @Override
+        public int decrementRefCount(String contentHash) {
+            ResourceBlob blob = blobs.get(contentHash);
+            if (blob == null || blob.getRefCount() <= 0) {
+                return 0;
+            }
+            blob.setRefCount(blob.getRefCount() - 1);
+            return 1;
+        }
+
+        @Override
+        public int deleteIfUnreferenced(String contentHash) {
+            ResourceBlob blob = blobs.get(contentHash);
+            if (blob == null || blob.getRefCount() > 0) {
+                return 0;
+            }
+            blobs.remove(contentHash);
+            return 1;
+        }
+
+        @Override
+        public List<String> selectExistingHashes(Collection<String> hashes) {
+            return hashes.stream().filter(blobs::containsKey).toList();
+        }
+    }
+}